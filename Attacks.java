@@ -0,0 +1,198 @@
+public class Attacks {
+
+    // Line and column steps for every piece, matching the moves listed in Horse and King
+    private static final int[][] HORSE_STEPS = {{-2, -1}, {-2, 1}, {2, -1}, {2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}};
+    private static final int[][] KING_STEPS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}, {-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+    private static final int[][] ROOK_STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_STEPS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // Precomputed targets for the pieces that do not slide
+    private static final long[] HORSE = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    // Squares strictly between two squares on a shared line or diagonal, 0 otherwise
+    private static final long[][] BETWEEN = new long[64][64];
+
+    /*
+     Magic bitboards for sliding pieces: the blockers inside a square's mask are
+     multiplied by a magic number and shifted down to an index into that square's
+     attack table, so a rook or bishop lookup is a multiply, a shift and a load.
+     The magic numbers below were found once by a random search for multipliers
+     that map every blocker subset of the mask without a harmful collision.
+    */
+    private static final long[] ROOK_MASK = new long[64];
+    private static final long[] ROOK_MAGIC = {
+            0x9080002288D0C000L, 0x00C0002000409000L, 0x4480200082100008L, 0x0880080110000480L,
+            0x0980080002040080L, 0x0980030C00800200L, 0x8A80008006004900L, 0x0A00011820408204L,
+            0x1098800020400088L, 0x8004401008402001L, 0x9080801000802002L, 0x8200800800801004L,
+            0x4000800400800800L, 0x6022008200081004L, 0x0004000244108108L, 0x02010000A1000042L,
+            0x1420808000204000L, 0x4030004008402008L, 0x0048110020010040L, 0x048C808010000803L,
+            0x0002450011004800L, 0x0800808004000200L, 0x0000040030820108L, 0x0000060000418C01L,
+            0x0300800080204001L, 0x0880200180400084L, 0x0055801200420022L, 0x0201020900201000L,
+            0x4208040080080080L, 0x0140040080800200L, 0x02010009002C0200L, 0x001180008024C900L,
+            0x0000400080800020L, 0x2400802000804004L, 0x0000110041002000L, 0x0000081001002100L,
+            0x4000040080800800L, 0x0000204008010490L, 0x0000800200800100L, 0x004210A402000051L,
+            0x9000802040008008L, 0x2010002000504000L, 0x4010008020008010L, 0x2002004024120009L,
+            0x0108000400808008L, 0x4022000400028080L, 0x1E40020810040001L, 0x00A2104900820004L,
+            0x0000804102003200L, 0xA000810200304200L, 0x0850008020001080L, 0x100C100080080080L,
+            0x8481000410080100L, 0x0002000400800280L, 0xAC08092290080C00L, 0x8000004104008200L,
+            0x2050422080001103L, 0x04210010E040008BL, 0x0558C12002110089L, 0x0000200410000901L,
+            0x0001000210480005L, 0x0002008810440102L, 0x1084008130020804L, 0x2101108940210406L
+    };
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final long[][] ROOK_TABLE = new long[64][];
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final long[] BISHOP_MAGIC = {
+            0x0111200100460040L, 0x04A0080121042030L, 0x0A09080903000000L, 0x0104040090082C30L,
+            0x02020210A8000204L, 0x2201042004101040L, 0x0800880148204008L, 0x04112021100820A0L,
+            0x0002C00808412040L, 0x0018081004004048L, 0x0004410202204004L, 0x000824405080A001L,
+            0x0004111040040842L, 0x0004510120102010L, 0x4418208201206090L, 0x0110009404110400L,
+            0x0840081011020080L, 0x0482102858010408L, 0x4110004800441024L, 0x2111002020408080L,
+            0x0254000880A00400L, 0x0A92008240562000L, 0x0082040401110940L, 0x0404500026021010L,
+            0x0002880010212808L, 0x2061100104043821L, 0x0000490010040084L, 0x0428080008806100L,
+            0x4001001081004000L, 0xA290084300880800L, 0x03420292005C1001L, 0x0204091006804909L,
+            0x1204214804041003L, 0x010C500C00880946L, 0x0182010101102042L, 0x0008202020880080L,
+            0x2011010400520020L, 0x0042288300020042L, 0x8041021401020101L, 0x1002284040020200L,
+            0x01080804104004A0L, 0x400A080A08202240L, 0x0480120901001000L, 0x1000404204800800L,
+            0x4000400408208104L, 0x0004102042000843L, 0x42180808004056A2L, 0x0448080C44920041L,
+            0x91040A0222A00428L, 0x0001008821880809L, 0x04020A0884244088L, 0x0009808020880021L,
+            0x1304002002048400L, 0x500004201C410108L, 0x404030010A208202L, 0x86C5100082008804L,
+            0x4004104A10101840L, 0x2242008084412006L, 0x2048000421080808L, 0x0000080002050400L,
+            0x2003000020020490L, 0x00A1004408500110L, 0x001811A008010450L, 0x2070110801084204L
+    };
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final long[][] BISHOP_TABLE = new long[64][];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            HORSE[sq] = steps(sq, HORSE_STEPS);
+            KING[sq] = steps(sq, KING_STEPS);
+            PAWN[Position.WHITE][sq] = pawnSteps(sq, 1);
+            PAWN[Position.BLACK][sq] = pawnSteps(sq, -1);
+            for (int to = 0; to < 64; to++) {
+                BETWEEN[sq][to] = walkBetween(sq, to);
+            }
+            ROOK_MASK[sq] = relevantMask(sq, ROOK_STEPS);
+            BISHOP_MASK[sq] = relevantMask(sq, BISHOP_STEPS);
+            fillTable(sq, ROOK_STEPS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_TABLE);
+            fillTable(sq, BISHOP_STEPS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_TABLE);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    // Squares a horse on sq can jump to
+    public static long horse(int sq) {
+        return HORSE[sq];
+    }
+
+    // Squares a king on sq can step to
+    public static long king(int sq) {
+        return KING[sq];
+    }
+
+    // Squares a pawn of the given side on sq captures on (diagonally forward)
+    public static long pawn(int side, int sq) {
+        return PAWN[side][sq];
+    }
+
+    // Squares a rook on sq reaches, stopping on the first occupied square of every line
+    public static long rook(int sq, long occupied) {
+        return ROOK_TABLE[sq][(int) (((occupied & ROOK_MASK[sq]) * ROOK_MAGIC[sq]) >>> ROOK_SHIFT[sq])];
+    }
+
+    // Squares a bishop on sq reaches, stopping on the first occupied square of every diagonal
+    public static long bishop(int sq, long occupied) {
+        return BISHOP_TABLE[sq][(int) (((occupied & BISHOP_MASK[sq]) * BISHOP_MAGIC[sq]) >>> BISHOP_SHIFT[sq])];
+    }
+
+    // A queen combines rook and bishop movement
+    public static long queen(int sq, long occupied) {
+        return rook(sq, occupied) | bishop(sq, occupied);
+    }
+
+    // Squares strictly between from and to when they share a line, column or diagonal, else 0
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    private static long steps(int sq, int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int line = Position.line(sq) + step[0];
+            int column = Position.column(sq) + step[1];
+            if (line >= 0 && line <= 7 && column >= 0 && column <= 7) {
+                attacks |= 1L << Position.square(line, column);
+            }
+        }
+        return attacks;
+    }
+
+    private static long pawnSteps(int sq, int direction) {
+        return steps(sq, new int[][]{{direction, -1}, {direction, 1}});
+    }
+
+    // Walk every ray square by square; only used to fill the tables
+    private static long rays(int sq, long occupied, int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int line = Position.line(sq) + step[0];
+            int column = Position.column(sq) + step[1];
+            while (line >= 0 && line <= 7 && column >= 0 && column <= 7) {
+                long bit = 1L << Position.square(line, column);
+                attacks |= bit;
+                if ((occupied & bit) != 0) break; // blocked by a piece
+                line += step[0];
+                column += step[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long walkBetween(int from, int to) {
+        int lineStep = Integer.signum(Position.line(to) - Position.line(from));
+        int columnStep = Integer.signum(Position.column(to) - Position.column(from));
+        int lines = Math.abs(Position.line(to) - Position.line(from));
+        int columns = Math.abs(Position.column(to) - Position.column(from));
+        if (from == to || (lines != 0 && columns != 0 && lines != columns)) return 0;
+
+        long squares = 0;
+        int sq = from + lineStep * 8 + columnStep;
+        while (sq != to) {
+            squares |= 1L << sq;
+            sq += lineStep * 8 + columnStep;
+        }
+        return squares;
+    }
+
+    // Ray squares whose occupancy can change the attacks: the last square of each ray never blocks anything
+    private static long relevantMask(int sq, int[][] steps) {
+        long mask = 0;
+        for (int[] step : steps) {
+            int line = Position.line(sq) + step[0];
+            int column = Position.column(sq) + step[1];
+            while (line + step[0] >= 0 && line + step[0] <= 7 && column + step[1] >= 0 && column + step[1] <= 7) {
+                mask |= 1L << Position.square(line, column);
+                line += step[0];
+                column += step[1];
+            }
+        }
+        return mask;
+    }
+
+    // Fill the attack table of one square for every subset of blockers inside its mask
+    private static void fillTable(int sq, int[][] steps, long[] masks, long[] magics, int[] shifts, long[][] tables) {
+        long mask = masks[sq];
+        int bits = Long.bitCount(mask);
+        long[] table = new long[1 << bits];
+        long subset = 0;
+        do {
+            table[(int) ((subset * magics[sq]) >>> (64 - bits))] = rays(sq, subset, steps);
+            subset = (subset - mask) & mask; // next subset of the mask
+        } while (subset != 0);
+        shifts[sq] = 64 - bits;
+        tables[sq] = table;
+    }
+}
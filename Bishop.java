@@ -1,8 +1,12 @@
 public class Bishop extends ChessPiece {
 
+    // Shared immutable instances, use these instead of creating new pieces
+    public static final Bishop WHITE = new Bishop("White");
+    public static final Bishop BLACK = new Bishop("Black");
+
     // Constructor
     public Bishop(String color) {
-        super(color); // Call the parent constructor
+        super(color, Position.BISHOP); // Call the parent constructor
     }
 
     // Return the color of the bishop
@@ -21,7 +25,7 @@ public class Bishop extends ChessPiece {
 
     // Check if the bishop can move to the provided position
     @Override
-    public boolean canMoveToPosition(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
+    protected boolean canMove(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
         // Ensure the provided position and target position are within board boundaries
         if (chessBoard.checkPos(line) && chessBoard.checkPos(column) &&
                 chessBoard.checkPos(toLine) && chessBoard.checkPos(toColumn)) {
@@ -32,24 +36,14 @@ public class Bishop extends ChessPiece {
                 ChessPiece targetPiece = chessBoard.board[toLine][toColumn];
 
                 // Check if the target position is empty or contains an opponent's piece
-                if (targetPiece == null || !targetPiece.getColor().equals(this.color)) {
+                if (targetPiece == null || targetPiece.side != this.side) {
 
                     // Check if the move is diagonal (same absolute difference between line and toLine, column and toColumn)
                     if (Math.abs(toLine - line) == Math.abs(toColumn - column)) {
                         // Check if there are no pieces blocking the diagonal path
-                        int deltaLine = (toLine - line) > 0 ? 1 : -1; // Determine the direction of movement along the rows
-                        int deltaColumn = (toColumn - column) > 0 ? 1 : -1; // Determine the direction of movement along the columns
-
-                        int checkLine = line + deltaLine; // Start checking from the next cell in the diagonal path
-                        int checkColumn = column + deltaColumn;
-
-                        while (checkLine != toLine && checkColumn != toColumn) {
-                            if (chessBoard.board[checkLine][checkColumn] != null) {
-                                // There is a piece blocking the diagonal path
-                                return false;
-                            }
-                            checkLine += deltaLine;
-                            checkColumn += deltaColumn;
+                        if (!chessBoard.isPathClear(line, column, toLine, toColumn)) {
+                            // There is a piece blocking the diagonal path
+                            return false;
                         }
 
                         // If no pieces block the diagonal path, the move is valid
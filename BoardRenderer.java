@@ -0,0 +1,158 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class BoardRenderer {
+
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final int EMPTY_CELL = 12;
+    private static final byte[][] CELLS = new byte[13][]; // text of every piece index, and ".." for an empty square
+
+    static {
+        for (int piece = 0; piece < 12; piece++) {
+            ChessPiece chessPiece = ChessPiece.of(piece);
+            CELLS[piece] = (chessPiece.getSymbol() + chessPiece.getColor().substring(0, 1).toLowerCase())
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+        CELLS[EMPTY_CELL] = "..".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /*
+     The frame printBoard() shows, kept as bytes and reused from render to render.
+     Every cell takes two characters and "White" and "Black" are equally long, so
+     each square and the player's name always sit at the same offset and a render
+     only overwrites the squares that changed.
+    */
+    private final byte[] frame;
+    private final int turnOffset;
+    private final int[] cellOffsets = new int[64];
+    private final ByteBuffer frameBuffer; // the frame for channel writes
+
+    private final byte[] shown = new byte[64]; // cell shown on every square, or -1 before the first render
+    private int shownSide = -1;
+    private long changed; // squares changed by the last render
+    private boolean turnChanged; // the player to move changed with the last render
+    private final byte[] changes = new byte[64 * (6 + NEWLINE.length) + 16 + NEWLINE.length];
+    private int changesLength;
+
+    // Constructor for a renderer that has not shown anything yet
+    public BoardRenderer() {
+        StringBuilder text = new StringBuilder();
+        String newline = System.lineSeparator();
+        text.append("Turn ");
+        turnOffset = text.length();
+        text.append("White").append(newline).append(newline);
+        text.append("Player 2(Black)").append(newline).append(newline);
+        text.append("\t0\t1\t2\t3\t4\t5\t6\t7").append(newline);
+        for (int line = 7; line >= 0; line--) {
+            text.append(line).append('\t');
+            for (int column = 0; column < 8; column++) {
+                cellOffsets[Position.square(line, column)] = text.length();
+                text.append("..\t");
+            }
+            text.append(newline).append(newline);
+        }
+        text.append("Player 1(White)").append(newline);
+        frame = text.toString().getBytes(StandardCharsets.US_ASCII);
+        frameBuffer = ByteBuffer.wrap(frame);
+        Arrays.fill(shown, (byte) -1);
+    }
+
+    /*
+     Bring the frame up to date with the board, touching only the squares whose
+     piece changed since the previous render; those are remembered for writeChanges()
+    */
+    public void render(ChessBoard board) {
+        changed = 0;
+        for (int line = 0; line < 8; line++) {
+            ChessPiece[] row = board.board[line];
+            for (int column = 0; column < 8; column++) {
+                ChessPiece piece = row[column];
+                int cell = piece == null ? EMPTY_CELL : piece.index;
+                int sq = Position.square(line, column);
+                if (shown[sq] != cell) {
+                    shown[sq] = (byte) cell;
+                    byte[] text = CELLS[cell];
+                    frame[cellOffsets[sq]] = text[0];
+                    frame[cellOffsets[sq] + 1] = text[1];
+                    changed |= 1L << sq;
+                }
+            }
+        }
+        turnChanged = board.nowSide != shownSide;
+        if (turnChanged) {
+            shownSide = board.nowSide;
+            byte[] name = Position.COLORS[shownSide].getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(name, 0, frame, turnOffset, name.length);
+        }
+        changesLength = -1; // built on demand
+    }
+
+    // Write the whole frame, exactly the text printBoard() prints
+    public void writeFrame(OutputStream out) throws IOException {
+        out.write(frame, 0, frame.length);
+    }
+
+    public void writeFrame(PrintStream out) {
+        out.write(frame, 0, frame.length);
+    }
+
+    public void writeFrame(WritableByteChannel channel) throws IOException {
+        frameBuffer.clear();
+        while (frameBuffer.hasRemaining()) channel.write(frameBuffer);
+    }
+
+    /*
+     Write only what the last render changed: "Turn Black" when the player to move
+     changed, then one "line column cell" line per changed square, e.g. "3 4 Pw"
+     or "1 4 ..". A spectator that has seen the previous frame can redraw from it.
+    */
+    public void writeChanges(OutputStream out) throws IOException {
+        buildChanges();
+        out.write(changes, 0, changesLength);
+    }
+
+    public void writeChanges(WritableByteChannel channel) throws IOException {
+        buildChanges();
+        ByteBuffer buffer = ByteBuffer.wrap(changes, 0, changesLength);
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    // Number of squares the last render changed
+    public int changedSquares() {
+        return Long.bitCount(changed);
+    }
+
+    @Override
+    public String toString() {
+        return new String(frame, StandardCharsets.US_ASCII);
+    }
+
+    private void buildChanges() {
+        if (changesLength >= 0) return;
+        int length = 0;
+        if (turnChanged) {
+            length = put(frame, 0, turnOffset + 5, length); // "Turn White" or "Turn Black"
+            length = put(NEWLINE, 0, NEWLINE.length, length);
+        }
+        for (long squares = changed; squares != 0; squares &= squares - 1) {
+            int sq = Long.numberOfTrailingZeros(squares);
+            changes[length++] = (byte) ('0' + Position.line(sq));
+            changes[length++] = ' ';
+            changes[length++] = (byte) ('0' + Position.column(sq));
+            changes[length++] = ' ';
+            length = put(frame, cellOffsets[sq], 2, length);
+            length = put(NEWLINE, 0, NEWLINE.length, length);
+        }
+        changesLength = length;
+    }
+
+    private int put(byte[] source, int offset, int count, int length) {
+        System.arraycopy(source, offset, changes, length, count);
+        return length + count;
+    }
+}
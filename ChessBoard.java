@@ -1,9 +1,44 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
 public class ChessBoard {
     public ChessPiece[][] board = new ChessPiece[8][8];
     String nowPlayer;
+    int nowSide; // nowPlayer as Position.WHITE or Position.BLACK
+    Position position; // bitboard mirror of board, built on first use
+
+    /*
+     Castling rights (Position.WHITE_CASTLING0 ...) replace the check flag pieces used
+     to carry: a right is lost as soon as anything moves from or to the king's or
+     the rook's home square, so the pieces themselves can stay immutable and shared.
+    */
+    int castlingRights = Position.WHITE_CASTLING0 | Position.WHITE_CASTLING7 |
+            Position.BLACK_CASTLING0 | Position.BLACK_CASTLING7;
+
+    /*
+     The fifty-move rule counts plies since the last capture or pawn move, and
+     repetitions are found among the keys of the positions played since then.
+     The history is started by the first move, so boards that are only set up and
+     looked at stay small; from then on every move adds one key and no more.
+    */
+    int halfmoveClock;
+    private GameHistory history;
+
+    // Undo stack for makeMove()/unmakeMove(), allocated by the first makeMove() so boards that never use it stay small
+    private int[] undoMove;
+    private ChessPiece[] undoPiece; // the moved piece (the king when castling)
+    private ChessPiece[] undoCaptured; // captured piece, or the rook when castling
+    private int[] undoSide;
+    private int[] undoCastlingRights;
+    private int[] undoPositionRights; // castling rights of the mirror
+    private int[] undoHalfmoveClock;
+    private int ply;
+
+    private BoardRenderer renderer; // keeps the last printed frame, created by the first printBoard()
 
     public ChessBoard(String nowPlayer) {
         this.nowPlayer = nowPlayer;
+        this.nowSide = Position.side(nowPlayer);
     }
 
     public String nowPlayerColor() {
@@ -11,84 +46,320 @@ public class ChessBoard {
     }
 
     public boolean moveToPosition(int startLine, int startColumn, int endLine, int endColumn) {
+        if (!Metrics.ENABLED) return move(startLine, startColumn, endLine, endColumn);
+        long start = System.nanoTime();
+        try {
+            return move(startLine, startColumn, endLine, endColumn);
+        } finally {
+            Metrics.record(Metrics.MOVE_TO_POSITION, start);
+        }
+    }
+
+    private boolean move(int startLine, int startColumn, int endLine, int endColumn) {
         if (checkPos(startLine) && checkPos(startColumn)) {
 
-            if (!nowPlayer.equals(board[startLine][startColumn].getColor())) return false;
+            if (nowSide != board[startLine][startColumn].side) return false;
 
             if (board[startLine][startColumn].canMoveToPosition(this, startLine, startColumn, endLine, endColumn)) {
-                // Check if the piece moved is King or Rook, then set check to false
-                if (board[startLine][startColumn].getSymbol().equals("K") ||
-                        board[startLine][startColumn].getSymbol().equals("R")) {
-                    board[startLine][startColumn].check = false;
-                }
+                startHistory();
+                boolean irreversible = board[startLine][startColumn].type == Position.PAWN || board[endLine][endColumn] != null;
+
+                // Moving from or capturing on a king's or rook's home square ends the castling that needs it
+                int from = Position.square(startLine, startColumn);
+                int to = Position.square(endLine, endColumn);
+                castlingRights &= ~(Position.rightsNeeding(from) | Position.rightsNeeding(to));
 
                 board[endLine][endColumn] = board[startLine][startColumn];
                 board[startLine][startColumn] = null;
-                this.nowPlayer = this.nowPlayerColor().equals("White") ? "Black" : "White";
+                position.play(Move.of(from, to));
+                switchPlayer();
+                record(irreversible);
 
                 return true;
             } else return false;
         } else return false;
     }
 
-    public void printBoard() {
-        System.out.println("Turn " + nowPlayer);
-        System.out.println();
-        System.out.println("Player 2(Black)");
-        System.out.println();
-        System.out.println("\t0\t1\t2\t3\t4\t5\t6\t7");
-
-        for (int i = 7; i >= 0; i--) {
-            System.out.print(i + "\t");
-            for (int j = 0; j < 8; j++) {
-                if (board[i][j] == null) {
-                    System.out.print(".." + "\t");
-                } else {
-                    System.out.print(board[i][j].getSymbol() + board[i][j].getColor().substring(0, 1).toLowerCase() + "\t");
-                }
-            }
-            System.out.println();
-            System.out.println();
+    // Make sure the key of the position before the next move is known; this also builds the mirror
+    private void startHistory() {
+        Position current = position();
+        if (history == null) history = new GameHistory(current.hash());
+    }
+
+    // Count the move just played towards the fifty-move rule and remember the position it reached
+    private void record(boolean irreversible) {
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        history.push(position.hash());
+    }
+
+    // Plies since the last capture or pawn move
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    // Keys of the positions played on this board, the current one included
+    public GameHistory history() {
+        startHistory();
+        return history;
+    }
+
+    // How often the current position occurred before since the last capture or pawn move
+    public int repetitions() {
+        return history().repetitions(halfmoveClock);
+    }
+
+    // Check if the current position has occurred three times, counting this one
+    public boolean isThreefoldRepetition() {
+        return repetitions() >= 2;
+    }
+
+    // Check if both players made 50 moves without a capture or a pawn move
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    // Check if no sequence of moves can lead to a mate, whatever the players do
+    public boolean isInsufficientMaterial() {
+        return position().isInsufficientMaterial();
+    }
+
+    // Pass the turn to the other player
+    private void switchPlayer() {
+        nowSide ^= 1;
+        nowPlayer = Position.COLORS[nowSide];
+    }
+
+    // Return an independent copy, safe to hand to another thread; pieces are immutable and shared
+    public ChessBoard copy() {
+        ChessBoard copy = new ChessBoard(nowPlayer);
+        for (int line = 0; line < 8; line++) {
+            System.arraycopy(board[line], 0, copy.board[line], 0, 8);
+        }
+        copy.castlingRights = castlingRights;
+        copy.halfmoveClock = halfmoveClock;
+        if (position != null) copy.position = new Position(position);
+        if (history != null) copy.history = new GameHistory(history);
+        return copy;
+    }
+
+    /*
+     Return the bitboard mirror of this board, building it from board[][] on first use.
+     moveToPosition(), castling0() and castling7() keep it up to date; call resync()
+     after placing pieces into board[][] directly.
+    */
+    public Position position() {
+        if (position == null) position = Position.of(this);
+        return position;
+    }
+
+    // Forget the bitboard mirror so the next position() call rebuilds it from board[][]
+    public void resync() {
+        position = null;
+    }
+
+    // Write every legal move of the side to move into moves and return how many were written
+    public int generateMoves(int[] moves) {
+        return MoveGenerator.generateLegal(position(), moves, 0);
+    }
+
+    // Write every move the piece rules allow, even if it leaves the own king attacked
+    public int generatePseudoLegalMoves(int[] moves) {
+        return MoveGenerator.generatePseudoLegal(position(), moves, 0);
+    }
+
+    // Return the 64-bit Zobrist key of the pieces, the player to move and the castling state
+    public long hash() {
+        return position().hash();
+    }
+
+    // Two boards are equal when they hold the same pieces, player to move and castling state
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof ChessBoard)) return false;
+        Position a = position();
+        Position b = ((ChessBoard) other).position();
+        return a.hash == b.hash && a.sideToMove == b.sideToMove && a.castlingRights == b.castlingRights &&
+                Arrays.equals(a.pieces, b.pieces);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash());
+    }
+
+    // Check if the king of the side to move is attacked by any opponent's piece
+    public boolean isInCheck() {
+        return position().isInCheck(position().sideToMove());
+    }
+
+    // Play a move produced by the move generator through moveToPosition(), castling0() or castling7()
+    public boolean playMove(int move) {
+        if (Move.flag(move) == Move.CASTLING0) return castling0();
+        if (Move.flag(move) == Move.CASTLING7) return castling7();
+        return moveToPosition(Position.line(Move.from(move)), Position.column(Move.from(move)),
+                Position.line(Move.to(move)), Position.column(Move.to(move)));
+    }
+
+    /*
+     Play a move like playMove() and remember everything needed to take it back:
+     the moved and captured pieces, the player to move, the castling rights and the halfmove clock. Returns false, changing nothing, if the rules reject the move.
+    */
+    public boolean makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = board[Position.line(from)][Position.column(from)];
+        ChessPiece captured;
+        if (Move.isCastling(move)) {
+            // Remember the rook, castling moves it next to the king
+            int rookFrom = Move.flag(move) == Move.CASTLING0 ? from - 4 : from + 3;
+            captured = board[Position.line(rookFrom)][Position.column(rookFrom)];
+        } else {
+            captured = board[Position.line(to)][Position.column(to)];
+        }
+        int side = nowSide;
+        int rights = castlingRights;
+        int positionRights = position().castlingRights;
+        int clock = halfmoveClock;
+
+        // Room on the stack is made before the move changes anything, so a full stack cannot leave it half played
+        if (undoMove == null) {
+            undoMove = new int[Position.MAX_PLY];
+            undoPiece = new ChessPiece[Position.MAX_PLY];
+            undoCaptured = new ChessPiece[Position.MAX_PLY];
+            undoSide = new int[Position.MAX_PLY];
+            undoCastlingRights = new int[Position.MAX_PLY];
+            undoPositionRights = new int[Position.MAX_PLY];
+            undoHalfmoveClock = new int[Position.MAX_PLY];
+        } else if (ply == undoMove.length) {
+            int size = ply * 2;
+            undoMove = Arrays.copyOf(undoMove, size);
+            undoPiece = Arrays.copyOf(undoPiece, size);
+            undoCaptured = Arrays.copyOf(undoCaptured, size);
+            undoSide = Arrays.copyOf(undoSide, size);
+            undoCastlingRights = Arrays.copyOf(undoCastlingRights, size);
+            undoPositionRights = Arrays.copyOf(undoPositionRights, size);
+            undoHalfmoveClock = Arrays.copyOf(undoHalfmoveClock, size);
         }
-        System.out.println("Player 1(White)");
+
+        if (!playMove(move)) return false;
+
+        undoMove[ply] = move;
+        undoPiece[ply] = piece;
+        undoCaptured[ply] = captured;
+        undoSide[ply] = side;
+        undoCastlingRights[ply] = rights;
+        undoPositionRights[ply] = positionRights;
+        undoHalfmoveClock[ply] = clock;
+        ply++;
+        return true;
+    }
+
+    // Take back the last move played with makeMove(), restoring the pieces, the player and the castling rights
+    public void unmakeMove() {
+        ply--;
+        int move = undoMove[ply];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = undoPiece[ply];
+        ChessPiece captured = undoCaptured[ply];
+        board[Position.line(from)][Position.column(from)] = piece;
+
+        int capturedPiece = Position.EMPTY;
+        if (Move.isCastling(move)) {
+            int rookFrom = Move.flag(move) == Move.CASTLING0 ? from - 4 : from + 3;
+            int rookTo = Move.flag(move) == Move.CASTLING0 ? from - 1 : from + 1;
+            board[Position.line(rookFrom)][Position.column(rookFrom)] = captured;
+            board[Position.line(rookTo)][Position.column(rookTo)] = null;
+            board[Position.line(to)][Position.column(to)] = null;
+        } else {
+            if (captured != null) capturedPiece = captured.index;
+            board[Position.line(to)][Position.column(to)] = captured;
+        }
+        nowSide = undoSide[ply];
+        nowPlayer = Position.COLORS[nowSide];
+        castlingRights = undoCastlingRights[ply];
+        position.undo(move, capturedPiece, undoPositionRights[ply]);
+        halfmoveClock = position.halfmoveClock = undoHalfmoveClock[ply];
+        history.pop();
+        if (history.size() == 0) history = new GameHistory(position.hash()); // taken back past every key it kept
+
+        // Do not keep removed pieces reachable from the stack
+        undoPiece[ply] = null;
+        undoCaptured[ply] = null;
+    }
+
+    public void printBoard() {
+        printBoard(System.out);
+    }
+
+    // Print the board like printBoard() to any stream, e.g. the socket of a server session
+    public void printBoard(PrintStream out) {
+        if (renderer == null) renderer = new BoardRenderer();
+        renderer.render(this);
+        renderer.writeFrame(out);
     }
 
     public boolean checkPos(int pos) {
         return pos >= 0 && pos <= 7;
     }
 
+    // Check that every square strictly between two squares on one line or diagonal is empty
+    public boolean isPathClear(int line, int column, int toLine, int toColumn) {
+        long path = Attacks.between(Position.square(line, column), Position.square(toLine, toColumn));
+        for (; path != 0; path &= path - 1) {
+            int sq = Long.numberOfTrailingZeros(path);
+            if (board[Position.line(sq)][Position.column(sq)] != null) return false;
+        }
+        return true;
+    }
+
     public boolean castling0() {
-        if (nowPlayer.equals("White")) {
+        if (!Metrics.ENABLED) return castle0();
+        long start = System.nanoTime();
+        try {
+            return castle0();
+        } finally {
+            Metrics.record(Metrics.CASTLING0, start);
+        }
+    }
+
+    private boolean castle0() {
+        if (nowSide == Position.WHITE) {
             if (board[0][0] == null || board[0][4] == null) return false;
-            if (board[0][0].getSymbol().equals("R") && board[0][4].getSymbol().equals("K") &&
+            if (board[0][0].type == Position.ROOK && board[0][4].type == Position.KING &&
                     board[0][1] == null && board[0][2] == null && board[0][3] == null) {
-                if (board[0][0].getColor().equals("White") && board[0][4].getColor().equals("White") &&
-                        board[0][0].check && board[0][4].check &&
-                        !new King("White").isUnderAttack(this, 0, 2)) {
+                if (board[0][0].side == Position.WHITE && board[0][4].side == Position.WHITE &&
+                        (castlingRights & Position.WHITE_CASTLING0) != 0 &&
+                        !King.isUnderAttack(this, 0, 2, Position.WHITE)) {
+                    startHistory(); // before the grid changes, the mirror may still have to be built from it
                     board[0][4] = null;
-                    board[0][2] = new King("White");
-                    board[0][2].check = false;
+                    board[0][2] = King.WHITE;
                     board[0][0] = null;
-                    board[0][3] = new Rook("White");
-                    board[0][3].check = false;
-                    nowPlayer = "Black";
+                    board[0][3] = Rook.WHITE;
+                    castlingRights &= ~(Position.WHITE_CASTLING0 | Position.WHITE_CASTLING7);
+                    position.play(Move.of(Position.square(0, 4), Position.square(0, 2), Move.CASTLING0));
+                    switchPlayer();
+                    record(false);
                     return true;
                 } else return false;
             } else return false;
         } else {
             if (board[7][0] == null || board[7][4] == null) return false;
-            if (board[7][0].getSymbol().equals("R") && board[7][4].getSymbol().equals("K") &&
+            if (board[7][0].type == Position.ROOK && board[7][4].type == Position.KING &&
                     board[7][1] == null && board[7][2] == null && board[7][3] == null) {
-                if (board[7][0].getColor().equals("Black") && board[7][4].getColor().equals("Black") &&
-                        board[7][0].check && board[7][4].check &&
-                        !new King("Black").isUnderAttack(this, 7, 2)) {
+                if (board[7][0].side == Position.BLACK && board[7][4].side == Position.BLACK &&
+                        (castlingRights & Position.BLACK_CASTLING0) != 0 &&
+                        !King.isUnderAttack(this, 7, 2, Position.BLACK)) {
+                    startHistory();
                     board[7][4] = null;
-                    board[7][2] = new King("Black");
-                    board[7][2].check = false;
+                    board[7][2] = King.BLACK;
                     board[7][0] = null;
-                    board[7][3] = new Rook("Black");
-                    board[7][3].check = false;
-                    nowPlayer = "White";
+                    board[7][3] = Rook.BLACK;
+                    castlingRights &= ~(Position.BLACK_CASTLING0 | Position.BLACK_CASTLING7);
+                    position.play(Move.of(Position.square(7, 4), Position.square(7, 2), Move.CASTLING0));
+                    switchPlayer();
+                    record(false);
                     return true;
                 } else return false;
             } else return false;
@@ -96,37 +367,51 @@ public class ChessBoard {
     }
 
     public boolean castling7() {
-        if (nowPlayer.equals("White")) {
+        if (!Metrics.ENABLED) return castle7();
+        long start = System.nanoTime();
+        try {
+            return castle7();
+        } finally {
+            Metrics.record(Metrics.CASTLING7, start);
+        }
+    }
+
+    private boolean castle7() {
+        if (nowSide == Position.WHITE) {
             if (board[0][7] == null || board[0][4] == null) return false;
-            if (board[0][7].getSymbol().equals("R") && board[0][4].getSymbol().equals("K") &&
+            if (board[0][7].type == Position.ROOK && board[0][4].type == Position.KING &&
                     board[0][5] == null && board[0][6] == null) {
-                if (board[0][7].getColor().equals("White") && board[0][4].getColor().equals("White") &&
-                        board[0][7].check && board[0][4].check &&
-                        !new King("White").isUnderAttack(this, 0, 6)) {
+                if (board[0][7].side == Position.WHITE && board[0][4].side == Position.WHITE &&
+                        (castlingRights & Position.WHITE_CASTLING7) != 0 &&
+                        !King.isUnderAttack(this, 0, 6, Position.WHITE)) {
+                    startHistory();
                     board[0][4] = null;
-                    board[0][6] = new King("White");
-                    board[0][6].check = false;
+                    board[0][6] = King.WHITE;
                     board[0][7] = null;
-                    board[0][5] = new Rook("White");
-                    board[0][5].check = false;
-                    nowPlayer = "Black";
+                    board[0][5] = Rook.WHITE;
+                    castlingRights &= ~(Position.WHITE_CASTLING0 | Position.WHITE_CASTLING7);
+                    position.play(Move.of(Position.square(0, 4), Position.square(0, 6), Move.CASTLING7));
+                    switchPlayer();
+                    record(false);
                     return true;
                 } else return false;
             } else return false;
         } else {
             if (board[7][7] == null || board[7][4] == null) return false;
-            if (board[7][7].getSymbol().equals("R") && board[7][4].getSymbol().equals("K") &&
+            if (board[7][7].type == Position.ROOK && board[7][4].type == Position.KING &&
                     board[7][5] == null && board[7][6] == null) {
-                if (board[7][7].getColor().equals("Black") && board[7][4].getColor().equals("Black") &&
-                        board[7][7].check && board[7][4].check &&
-                        !new King("Black").isUnderAttack(this, 7, 6)) {
+                if (board[7][7].side == Position.BLACK && board[7][4].side == Position.BLACK &&
+                        (castlingRights & Position.BLACK_CASTLING7) != 0 &&
+                        !King.isUnderAttack(this, 7, 6, Position.BLACK)) {
+                    startHistory();
                     board[7][4] = null;
-                    board[7][6] = new King("Black");
-                    board[7][6].check = false;
+                    board[7][6] = King.BLACK;
                     board[7][7] = null;
-                    board[7][5] = new Rook("Black");
-                    board[7][5].check = false;
-                    nowPlayer = "White";
+                    board[7][5] = Rook.BLACK;
+                    castlingRights &= ~(Position.BLACK_CASTLING0 | Position.BLACK_CASTLING7);
+                    position.play(Move.of(Position.square(7, 4), Position.square(7, 6), Move.CASTLING7));
+                    switchPlayer();
+                    record(false);
                     return true;
                 } else return false;
             } else return false;
@@ -1,16 +1,48 @@
 public abstract class ChessPiece {
-    String color;
-    boolean check;
+    final String color;
+    final int side; // Position.WHITE or Position.BLACK
+    final int type; // Position.PAWN ... Position.KING
+    final int index; // Position.piece(side, type)
 
     // Constructor
-    public ChessPiece(String color) {
+    public ChessPiece(String color, int type) {
         this.color = color;
-        this.check = true; // set to true by default
+        this.side = Position.side(color);
+        this.type = type;
+        this.index = Position.piece(side, type);
+    }
+
+    // Return the shared instance for a piece index (side * 6 + type)
+    public static ChessPiece of(int index) {
+        return Shared.PIECES[index];
+    }
+
+    /*
+     Pieces are immutable, so one shared instance per kind is enough for every board.
+     The table sits in its own holder class so it is only built after the subclasses,
+     which own the instances, have been initialized.
+    */
+    private static class Shared {
+        static final ChessPiece[] PIECES = {
+                Pawn.WHITE, Horse.WHITE, Bishop.WHITE, Rook.WHITE, Queen.WHITE, King.WHITE,
+                Pawn.BLACK, Horse.BLACK, Bishop.BLACK, Rook.BLACK, Queen.BLACK, King.BLACK
+        };
     }
 
     public abstract String getColor(); //return the color of the piece
 
-    public abstract boolean canMoveToPosition(ChessBoard chessBoard, int line, int column, int toLine, int toColumn); //check if the piece can move to provided position on the board
+    //check if the piece can move to provided position on the board, timed per kind of piece when Metrics are on
+    public final boolean canMoveToPosition(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
+        if (!Metrics.ENABLED) return canMove(chessBoard, line, column, toLine, toColumn);
+        long start = System.nanoTime();
+        try {
+            return canMove(chessBoard, line, column, toLine, toColumn);
+        } finally {
+            Metrics.record(Metrics.CAN_MOVE + type, start);
+        }
+    }
+
+    protected abstract boolean canMove(ChessBoard chessBoard, int line, int column, int toLine, int toColumn); //the rule of the piece behind canMoveToPosition()
 
     public abstract String getSymbol(); //return represantation of the piece
-}
\ No newline at end of file
+}
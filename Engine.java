@@ -0,0 +1,15 @@
+// Something that picks a move for the player to move, like Search or LazySmp
+public interface Engine {
+
+    // Best move for the board within the depth, time (ms) and node budget, or 0 if there is none; 0 means no limit
+    int bestMove(ChessBoard board, int maxDepth, long millis, long maxNodes);
+
+    // Score of the last returned move from the point of view of the player who moves
+    int score();
+
+    // Depth of the search that found the last returned move
+    int depth();
+
+    // Positions visited by the last search
+    long nodes();
+}
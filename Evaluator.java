@@ -0,0 +1,142 @@
+public class Evaluator {
+
+    // Piece values in centipawns, indexed by type; the king is never captured by legal moves
+    public static final int[] VALUES = {100, 320, 330, 500, 900, 0};
+
+    /*
+     Piece-square tables from White's point of view, drawn as White sees the board:
+     the first row is line 7 (Black's home line), the last one line 0. Pawns get
+     nothing on the last line, since without promotion a pawn there is stuck.
+    */
+    private static final int[] PAWN_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0};
+    private static final int[] HORSE_TABLE = {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50};
+    private static final int[] BISHOP_TABLE = {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20};
+    private static final int[] ROOK_TABLE = {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0};
+    private static final int[] QUEEN_TABLE = {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20};
+    private static final int[] KING_TABLE = {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20};
+    private static final int[][] TABLES = {PAWN_TABLE, HORSE_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE, KING_TABLE};
+
+    /*
+     Value plus table bonus of every piece index on every square, positive for White.
+     Position adds and subtracts these as pieces are put and removed, so the sum over
+     the board is always at hand without looking at the squares.
+    */
+    static final int[][] PIECE_SQUARE = new int[12][64];
+
+    // Pawn structure
+    private static final int DOUBLED = -10; // every pawn behind another of the same side on its column
+    private static final int ISOLATED = -15; // no pawn of the same side on the neighbouring columns
+    private static final int[][] PASSED = { // by lines advanced, no enemy pawn can stop it
+            {0, 5, 10, 20, 35, 60, 100, 0},
+            {0, 100, 60, 35, 20, 10, 5, 0}};
+    private static final long[] COLUMNS = new long[8];
+    private static final long[] NEIGHBOUR_COLUMNS = new long[8];
+    private static final long[][] PASSED_MASK = new long[2][64]; // squares in front on the same and neighbouring columns
+
+    static {
+        for (int type = Position.PAWN; type <= Position.KING; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                int line = Position.line(sq);
+                int column = Position.column(sq);
+                PIECE_SQUARE[Position.piece(Position.WHITE, type)][sq] = VALUES[type] + TABLES[type][(7 - line) * 8 + column];
+                PIECE_SQUARE[Position.piece(Position.BLACK, type)][sq] = -VALUES[type] - TABLES[type][line * 8 + column];
+            }
+        }
+        for (int column = 0; column < 8; column++) {
+            COLUMNS[column] = 0x0101010101010101L << column;
+        }
+        for (int column = 0; column < 8; column++) {
+            NEIGHBOUR_COLUMNS[column] = (column > 0 ? COLUMNS[column - 1] : 0) | (column < 7 ? COLUMNS[column + 1] : 0);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            long span = COLUMNS[Position.column(sq)] | NEIGHBOUR_COLUMNS[Position.column(sq)];
+            int line = Position.line(sq);
+            PASSED_MASK[Position.WHITE][sq] = line == 7 ? 0 : span & (-1L << (line + 1) * 8);
+            PASSED_MASK[Position.BLACK][sq] = span & ((1L << line * 8) - 1);
+        }
+    }
+
+    private Evaluator() {
+    }
+
+    // Score of the position from the point of view of the player to move
+    public static int evaluate(Position position) {
+        int score = position.pieceSquareScore() + pawnStructure(position);
+        return position.sideToMove() == Position.WHITE ? score : -score;
+    }
+
+    // Score of the board from the point of view of the player to move
+    public static int evaluate(ChessBoard board) {
+        return evaluate(board.position());
+    }
+
+    // Doubled, isolated and passed pawns of both sides, positive for White
+    static int pawnStructure(Position position) {
+        long white = position.bitboard(Position.WHITE, Position.PAWN);
+        long black = position.bitboard(Position.BLACK, Position.PAWN);
+        return pawnStructure(white, black, Position.WHITE) - pawnStructure(black, white, Position.BLACK);
+    }
+
+    private static int pawnStructure(long own, long enemy, int side) {
+        int score = 0;
+        for (int column = 0; column < 8; column++) {
+            int count = Long.bitCount(own & COLUMNS[column]);
+            if (count == 0) continue;
+            score += (count - 1) * DOUBLED;
+            if ((own & NEIGHBOUR_COLUMNS[column]) == 0) score += count * ISOLATED;
+        }
+        for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            if ((enemy & PASSED_MASK[side][sq]) == 0) score += PASSED[side][Position.line(sq)];
+        }
+        return score;
+    }
+}
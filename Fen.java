@@ -0,0 +1,166 @@
+import java.nio.charset.StandardCharsets;
+
+public class Fen {
+
+    // FEN letters for the piece types, white in upper case; horses use the usual N
+    private static final String LETTERS = "PNBRQK";
+
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {
+    }
+
+    // Build a new ChessBoard from a FEN string
+    public static ChessBoard toChessBoard(CharSequence fen) {
+        Position position = new Position();
+        parse(fen, 0, fen.length(), position);
+        return position.toChessBoard();
+    }
+
+    // Return the FEN string of a ChessBoard
+    public static String toFen(ChessBoard chessBoard) {
+        return toFen(chessBoard.position());
+    }
+
+    /*
+     Parse FEN text from start (inclusive) to end (exclusive) into an existing position.
+     The text is read character by character, nothing is split or copied, so a caller
+     parsing millions of lines can reuse one Position and allocate nothing per line.
+     The en passant field is accepted but ignored, the piece rules have no en passant,
+     and the fullmove number is ignored too.
+    */
+    public static void parse(CharSequence fen, int start, int end, Position position) {
+        position.clear();
+        int i = start;
+
+        // Piece placement, from line 7 down to line 0 and from column 0 to 7
+        int line = 7;
+        int column = 0;
+        for (; i < end && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (column != 8) throw error(fen, start, end, "line " + line + " does not have 8 squares");
+                line--;
+                column = 0;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+            } else {
+                int type = LETTERS.indexOf(Character.toUpperCase(c));
+                if (type < 0) type = Character.toUpperCase(c) == 'H' ? Position.HORSE : -1; // the board's own letter
+                if (type < 0) throw error(fen, start, end, "unknown piece '" + c + "'");
+                if (line < 0 || column > 7) throw error(fen, start, end, "too many squares");
+                int side = Character.isUpperCase(c) ? Position.WHITE : Position.BLACK;
+                position.put(Position.square(line, column++), Position.piece(side, type));
+            }
+        }
+        if (line != 0 || column != 8) throw error(fen, start, end, "the board does not have 64 squares");
+
+        // Side to move
+        i = skipSpaces(fen, i, end);
+        if (i >= end) throw error(fen, start, end, "side to move is missing");
+        char side = fen.charAt(i++);
+        if (side != 'w' && side != 'b') throw error(fen, start, end, "side to move must be 'w' or 'b'");
+        position.sideToMove = side == 'w' ? Position.WHITE : Position.BLACK;
+
+        // Castling rights, K and k castle towards column 7, Q and q towards column 0
+        int rights = 0;
+        i = skipSpaces(fen, i, end);
+        for (; i < end && fen.charAt(i) != ' '; i++) {
+            switch (fen.charAt(i)) {
+                case 'K': rights |= Position.WHITE_CASTLING7; break;
+                case 'Q': rights |= Position.WHITE_CASTLING0; break;
+                case 'k': rights |= Position.BLACK_CASTLING7; break;
+                case 'q': rights |= Position.BLACK_CASTLING0; break;
+                case '-': break;
+                default: throw error(fen, start, end, "unknown castling right '" + fen.charAt(i) + "'");
+            }
+        }
+        position.castlingRights = position.possibleRights(rights);
+        position.hash = Zobrist.hash(position);
+
+        // En passant is skipped, the halfmove clock is optional like everything after it
+        i = skipSpaces(fen, i, end);
+        while (i < end && fen.charAt(i) != ' ') i++;
+        i = skipSpaces(fen, i, end);
+        int clock = 0;
+        for (; i < end && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9' || clock > 10_000) throw error(fen, start, end, "bad halfmove clock");
+            clock = clock * 10 + c - '0';
+        }
+        position.halfmoveClock = clock;
+    }
+
+    // Parse FEN text stored as ASCII bytes, e.g. straight from a file buffer
+    public static void parse(byte[] fen, int start, int end, Position position) {
+        parse(new Ascii(fen), start, end, position);
+    }
+
+    public static String toFen(Position position) {
+        StringBuilder fen = new StringBuilder(90);
+        appendFen(position, fen);
+        return fen.toString();
+    }
+
+    // Append the FEN of a position to a builder the caller may reuse
+    public static void appendFen(Position position, StringBuilder fen) {
+        for (int line = 7; line >= 0; line--) {
+            int empty = 0;
+            for (int column = 0; column < 8; column++) {
+                int piece = position.squares[Position.square(line, column)];
+                if (piece == Position.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) fen.append((char) ('0' + empty));
+                empty = 0;
+                char letter = LETTERS.charAt(Position.typeOf(piece));
+                fen.append(Position.sideOf(piece) == Position.WHITE ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) fen.append((char) ('0' + empty));
+            if (line > 0) fen.append('/');
+        }
+        fen.append(position.sideToMove == Position.WHITE ? " w " : " b ");
+
+        int rights = position.castlingRights;
+        if (rights == 0) fen.append('-');
+        if ((rights & Position.WHITE_CASTLING7) != 0) fen.append('K');
+        if ((rights & Position.WHITE_CASTLING0) != 0) fen.append('Q');
+        if ((rights & Position.BLACK_CASTLING7) != 0) fen.append('k');
+        if ((rights & Position.BLACK_CASTLING0) != 0) fen.append('q');
+        fen.append(" - ").append(position.halfmoveClock).append(" 1");
+    }
+
+    private static int skipSpaces(CharSequence fen, int i, int end) {
+        while (i < end && fen.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static IllegalArgumentException error(CharSequence fen, int start, int end, String reason) {
+        return new IllegalArgumentException("Bad FEN '" + fen.subSequence(start, end) + "': " + reason);
+    }
+
+    // Read-only character view of ASCII bytes
+    private static class Ascii implements CharSequence {
+        private final byte[] bytes;
+
+        Ascii(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+        }
+    }
+}
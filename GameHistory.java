@@ -0,0 +1,73 @@
+public class GameHistory {
+
+    /*
+     Zobrist keys of the positions of one game, one per ply, in a ring buffer. A
+     position can only repeat one reached after the last capture or pawn move, and
+     the fifty-move rule ends the game 100 plies after that, so only the newest keys
+     are ever looked at: older ones are overwritten and a game of any length keeps
+     the same 1 KB instead of snapshots of its boards. Taking moves back does not
+     bring overwritten keys back either: after the buffer has wrapped, each pop
+     leaves one key fewer to look up.
+    */
+    public static final int CAPACITY = 128; // power of two above the 100 plies of the fifty-move rule
+    private static final int MASK = CAPACITY - 1;
+
+    private final long[] keys = new long[CAPACITY];
+    private int count; // keys recorded so far, the newest at (count - 1) & MASK
+    private int valid; // newest keys not overwritten since they were recorded, at most CAPACITY
+
+    // Constructor for a game starting from the position with the given key
+    public GameHistory(long startKey) {
+        keys[0] = startKey;
+        count = 1;
+        valid = 1;
+    }
+
+    // Copy constructor, for copies of a board
+    public GameHistory(GameHistory other) {
+        System.arraycopy(other.keys, 0, keys, 0, CAPACITY);
+        count = other.count;
+        valid = other.valid;
+    }
+
+    // Record the key of the position reached by the next move
+    public void push(long key) {
+        keys[count++ & MASK] = key;
+        if (valid < CAPACITY) valid++;
+    }
+
+    /*
+     Forget the newest key when its move is taken back. The slot of the key before
+     it may hold a newer one by now, so that key is only looked up while size() says
+     it is still there; once all are gone size() is 0 until the next push.
+    */
+    public void pop() {
+        count--;
+        if (valid > 0) valid--;
+    }
+
+    // Number of keys that can still be looked up, the current position included
+    public int size() {
+        return valid;
+    }
+
+    // Key of the position the given number of plies ago, 0 for the current one
+    public long key(int pliesBack) {
+        return keys[(count - 1 - pliesBack) & MASK];
+    }
+
+    /*
+     How often the current position occurred before with the same player to move,
+     looking back at most window plies: pass the halfmove clock, as nothing before
+     the last capture or pawn move can come back.
+    */
+    public int repetitions(int window) {
+        long key = key(0);
+        int found = 0;
+        int limit = Math.min(window, size() - 1);
+        for (int back = 4; back <= limit; back += 2) { // it takes both sides two moves to return
+            if (key(back) == key) found++;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,172 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameServer implements Closeable {
+
+    private static final int BACKLOG = 4096; // connections waiting to be accepted during a burst of clients
+    private static final int BUFFER_SIZE = 512; // per connection; an answer is at most a board of about 400 bytes
+    private static final long MAX_SEARCH_MILLIS = 5000; // longest 'hint' or 'ai' a client may ask for
+    private static final long MAX_SEARCH_NODES = 20_000_000;
+    private static final int MAX_PERFT_DEPTH = 5; // a few million positions, about a second of one core
+
+    private final ServerSocket serverSocket;
+    private final TranspositionTable table; // shared by the searches of all sessions
+    private final OpeningBook book; // shared by all sessions, may be null
+    private final Tablebase[] tablebases; // shared by all sessions
+    private final ForkJoinPool compute; // one thread per core runs every search and perft of the sessions
+    private final GameSession.Limits limits;
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    /*
+     Constructor for a server on the given local port (0 picks a free one). Every
+     connection gets its own GameSession on its own virtual thread, speaking Main's
+     commands one per line, so tens of thousands of mostly idle games cost little
+     more than their boards. Searches and perfts of the clients are bounded and run
+     on a pool of one thread per core, so a few busy clients cannot hold the carrier
+     threads of all the others. Needs Java 21.
+    */
+    public GameServer(int port) throws IOException {
+        this(port, null);
+    }
+
+    // Constructor for a server whose sessions play from the opening book before they search
+    public GameServer(int port, OpeningBook book) throws IOException {
+        this(port, book, new Tablebase[0]);
+    }
+
+    // Constructor for a server whose sessions also answer the endgames of the tables without searching
+    public GameServer(int port, OpeningBook book, Tablebase[] tablebases) throws IOException {
+        this.book = book;
+        this.tablebases = tablebases;
+        serverSocket = new ServerSocket(port, BACKLOG);
+        table = new TranspositionTable(64, TranspositionTable.DEPTH_PREFERRED);
+        compute = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        limits = new GameSession.Limits(MAX_SEARCH_MILLIS, MAX_SEARCH_NODES, MAX_PERFT_DEPTH, compute);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    // Number of sessions currently connected
+    public int activeSessions() {
+        return sessions.get();
+    }
+
+    /*
+     Open a game that runs in this process without a socket, for example for a
+     front end living in the same JVM. Its 'hint' and 'ai' share the server's table, book and endgame tables,
+     and it has the same limits as the sessions of the clients.
+    */
+    public GameSession newSession() {
+        return new GameSession(() -> new Search(table), book, tablebases, limits);
+    }
+
+    // Accept connections until the server is closed
+    public void run() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) return;
+                throw e;
+            }
+            Thread.ofVirtual().name("session-" + socket.getPort()).start(() -> serve(socket));
+        }
+    }
+
+    // Play one game over the connection until the client says 'exit' or goes away
+    private void serve(Socket socket) {
+        sessions.incrementAndGet();
+        try (socket) {
+            LineReader in = new LineReader(socket.getInputStream());
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE), false, StandardCharsets.UTF_8);
+            GameSession session = newSession();
+            out.println(GameSession.HELP);
+            out.println();
+            session.board().printBoard(out);
+            out.flush();
+            String line;
+            while ((line = in.readLine()) != null && execute(session, line, out)) {
+                out.flush();
+            }
+            out.flush();
+        } catch (IOException e) {
+            // The client went away; its game goes with it
+        } finally {
+            sessions.decrementAndGet();
+        }
+    }
+
+    // Run one command; a bug it runs into is logged and answered, and the game goes on
+    private static boolean execute(GameSession session, String line, PrintStream out) {
+        try {
+            return session.execute(line, out);
+        } catch (RuntimeException e) {
+            System.err.println(Thread.currentThread().getName() + ": команда '" + line + "' не выполнена");
+            e.printStackTrace();
+            out.println("Не удалось выполнить команду: " + e);
+            return true;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        compute.shutdownNow();
+    }
+
+    /*
+     Read UTF-8 lines through one small buffer. An InputStreamReader would keep an
+     8 KB decoding buffer for every connection, more than the rest of an idle game.
+    */
+    private static class LineReader {
+        private static final int MAX_LINE = 1024; // longer lines are cut, no command comes close
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[128];
+        private int position;
+        private int limit;
+        private byte[] line = new byte[64];
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        // Next line without its end, or null at the end of the stream
+        String readLine() throws IOException {
+            int length = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return length == 0 ? null : decode(length);
+                    }
+                }
+                byte b = buffer[position++];
+                if (b == '\n') return decode(length);
+                if (length < MAX_LINE) {
+                    if (length == line.length) line = Arrays.copyOf(line, length * 2);
+                    line[length++] = b;
+                }
+            }
+        }
+
+        private String decode(int length) {
+            if (length > 0 && line[length - 1] == '\r') length--;
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
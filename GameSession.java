@@ -0,0 +1,229 @@
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+public class GameSession {
+
+    public static final String HELP = """
+               Чтобы проверить игру надо вводить команды:
+               'exit' - для выхода
+               'replay' - для перезапуска игры
+               'castling0' или 'castling7' - для рокировки по соответствующей линии
+               'move 1 1 2 3' - для передвижения фигуры с позиции 1 1 на 2 3(поле это двумерный массив от 0 до 7)
+               'perft 4' или 'divide 4' - для подсчёта позиций на заданную глубину из текущей позиции
+               'pperft 4' или 'pdivide 4' - то же самое на всех ядрах
+               'hint' или 'hint 500' - для подсказки хода (время на раздумье в миллисекундах, по умолчанию 1000)
+               'ai' или 'ai 500' - чтобы компьютер сделал ход за текущего игрока
+               'fen' - для вывода позиции в FEN, 'fen <FEN>' - для загрузки позиции из FEN
+               Проверьте могут ли фигуры ходить друг сквозь друга, корректно ли съедают друг друга, можно ли поставить шах и сделать рокировку?""";
+
+    /*
+     One game driven by Main's text commands. An idle session holds little more than
+     its ChessBoard: the search is fetched from engines only when 'hint' or 'ai' asks
+     for it, and the board's bitboard mirror and undo stack are built only when used.
+     A session is not thread-safe; give every client its own.
+    */
+    private ChessBoard board = Main.buildBoard();
+    private final Supplier<? extends Engine> engines; // null when the session has no computer player
+    private final OpeningBook book; // asked before the search while the game is in the book, may be null
+    private final Tablebase[] tablebases; // answer endgames they cover without searching
+    private final Limits limits;
+
+    /*
+     What one session may spend on 'hint', 'ai' and perft. Searches are cut to
+     millis and nodes and deeper perfts are refused (0 means no limit), and when
+     there is a pool the work runs on it instead of the thread of the session, so
+     sessions of a server share a fixed number of cores instead of taking one each.
+    */
+    public static final class Limits {
+        public static final Limits NONE = new Limits(0, 0, 0, null);
+
+        final long millis;
+        final long nodes;
+        final int perftDepth;
+        final ForkJoinPool pool; // null runs on the caller and 'pperft' on the common pool
+
+        public Limits(long millis, long nodes, int perftDepth, ForkJoinPool pool) {
+            this.millis = millis;
+            this.nodes = nodes;
+            this.perftDepth = perftDepth;
+            this.pool = pool;
+        }
+    }
+
+    // Constructor for a session without 'hint' and 'ai'
+    public GameSession() {
+        this(null);
+    }
+
+    public GameSession(Supplier<? extends Engine> engines) {
+        this(engines, null);
+    }
+
+    public GameSession(Supplier<? extends Engine> engines, OpeningBook book) {
+        this(engines, book, new Tablebase[0]);
+    }
+
+    public GameSession(Supplier<? extends Engine> engines, OpeningBook book, Tablebase[] tablebases) {
+        this(engines, book, tablebases, Limits.NONE);
+    }
+
+    // Constructor for a session whose searches and perfts are bounded, as for a remote client
+    public GameSession(Supplier<? extends Engine> engines, OpeningBook book, Tablebase[] tablebases, Limits limits) {
+        this.engines = engines;
+        this.book = book;
+        this.tablebases = tablebases;
+        this.limits = limits;
+    }
+
+    public ChessBoard board() {
+        return board;
+    }
+
+    /*
+     Run one command and print its answer, exactly like the console game does.
+     Returns false after 'exit', when the session is over.
+    */
+    public boolean execute(String s, PrintStream out) {
+        if (s.equals("exit")) return false;
+        else if (s.equals("replay")) {
+            out.println("Заново");
+            board = Main.buildBoard();
+            board.printBoard(out);
+        } else {
+            if (s.equals("castling0")) {
+                if (board.castling0()) {
+                    out.println("Рокировка удалась");
+                    board.printBoard(out);
+                    reportDraw(out);
+                } else {
+                    out.println("Рокировка не удалась");
+                }
+            } else if (s.equals("castling7")) {
+                if (board.castling7()) {
+                    out.println("Рокировка удалась");
+                    board.printBoard(out);
+                    reportDraw(out);
+                } else {
+                    out.println("Рокировка не удалась");
+                }
+            } else if (s.equals("fen")) {
+                out.println(Fen.toFen(board));
+            } else if (s.startsWith("fen ")) {
+                try {
+                    board = Fen.toChessBoard(s.substring(4).trim());
+                    board.printBoard(out);
+                } catch (IllegalArgumentException e) {
+                    out.println("Вы что-то ввели не так, попробуйте ещё раз");
+                }
+            } else if (s.matches("(hint|ai)( .*)?")) {
+                if (engines == null) {
+                    out.println("Компьютерный игрок недоступен");
+                    return true;
+                }
+                if (drawReason() != null) {
+                    out.println("Партия окончена вничью: " + drawReason());
+                    return true;
+                }
+                try {
+                    long millis = s.indexOf(' ') > 0 ? Long.parseLong(s.substring(s.indexOf(' ') + 1).trim()) : 1000;
+                    if (limits.millis > 0 && (millis <= 0 || millis > limits.millis)) millis = limits.millis;
+                    int bookMove = book == null ? 0 : book.bestMove(board);
+                    if (bookMove != 0) {
+                        if (s.startsWith("hint")) {
+                            out.println("Подсказка: " + Move.toString(bookMove) + " (из книги дебютов)");
+                        } else if (board.playMove(bookMove)) {
+                            out.println("Компьютер сыграл " + Move.toString(bookMove));
+                            board.printBoard(out);
+                            reportDraw(out);
+                        }
+                        return true;
+                    }
+                    for (Tablebase tablebase : tablebases) {
+                        int score = tablebase.probe(board);
+                        if (score == Tablebase.UNKNOWN) continue;
+                        int move = tablebase.bestMove(board.position());
+                        if (move == 0) {
+                            out.println("Ходов нет");
+                        } else if (s.startsWith("hint")) {
+                            out.println("Подсказка: " + Move.toString(move) + " (оценка " + score
+                                    + ", из таблицы " + tablebase.name() + ")");
+                        } else if (board.playMove(move)) {
+                            out.println("Компьютер сыграл " + Move.toString(move));
+                            board.printBoard(out);
+                            reportDraw(out);
+                        }
+                        return true;
+                    }
+                    Engine engine = engines.get();
+                    long time = millis;
+                    int move = compute(() -> engine.bestMove(board, Search.MAX_DEPTH, time, limits.nodes));
+                    if (move == 0) {
+                        out.println("Ходов нет");
+                    } else if (s.startsWith("hint")) {
+                        out.println("Подсказка: " + Move.toString(move) + " (оценка " + engine.score()
+                                + ", глубина " + engine.depth() + ", узлов " + engine.nodes() + ")");
+                    } else if (board.playMove(move)) {
+                        out.println("Компьютер сыграл " + Move.toString(move));
+                        board.printBoard(out);
+                        reportDraw(out);
+                    }
+                } catch (NumberFormatException e) {
+                    out.println("Вы что-то ввели не так, попробуйте ещё раз");
+                }
+            } else if (s.matches("p?(perft|divide) .*")) {
+                try {
+                    int depth = Integer.parseInt(s.substring(s.indexOf(' ') + 1).trim());
+                    if (limits.perftDepth > 0 && depth > limits.perftDepth) {
+                        out.println("Глубина не может быть больше " + limits.perftDepth);
+                        return true;
+                    }
+                    ForkJoinPool pool = !s.startsWith("p") ? null : limits.pool != null ? limits.pool : ForkJoinPool.commonPool();
+                    compute(() -> Perft.run(board.position(), depth, s.contains("divide"), pool, out));
+                } catch (NumberFormatException e) {
+                    out.println("Вы что-то ввели не так, попробуйте ещё раз");
+                }
+            } else if (s.contains("move")) {
+                String[] a = s.split(" ");
+                try {
+                    int line = Integer.parseInt(a[1]);
+                    int column = Integer.parseInt(a[2]);
+                    int toLine = Integer.parseInt(a[3]);
+                    int toColumn = Integer.parseInt(a[4]);
+                    if (board.moveToPosition(line, column, toLine, toColumn)) {
+                        out.println("Успешно передвинулись");
+                        board.printBoard(out);
+                        reportDraw(out);
+                    } else out.println("Передвижение не удалось");
+                } catch (Exception e) {
+                    out.println("Вы что-то ввели не так, попробуйте ещё раз");
+                }
+
+            }
+        }
+        return true;
+    }
+
+    // Run the work on the pool of the limits and wait for it, or right here when there is none
+    private <T> T compute(Supplier<T> work) {
+        return limits.pool == null ? work.get() : limits.pool.invoke(ForkJoinTask.adapt(work::get));
+    }
+
+    /*
+     Why the game on the board is drawn by rule, or null while it goes on. The players
+     may still move, as in the console game, but the computer no longer plays.
+    */
+    public String drawReason() {
+        if (board.isThreefoldRepetition()) return "троекратное повторение позиции";
+        if (board.isFiftyMoveRule()) return "правило 50 ходов";
+        if (board.isInsufficientMaterial()) return "ни у кого не хватит фигур для мата";
+        return null;
+    }
+
+    // Announce the draw after the move that brought it
+    private void reportDraw(PrintStream out) {
+        String reason = drawReason();
+        if (reason != null) out.println("Ничья: " + reason);
+    }
+}
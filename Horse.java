@@ -1,8 +1,12 @@
 public class Horse extends ChessPiece {
 
+    // Shared immutable instances, use these instead of creating new pieces
+    public static final Horse WHITE = new Horse("White");
+    public static final Horse BLACK = new Horse("Black");
+
     // Constructor
     public Horse(String color) {
-        super(color); // Call parent constructor
+        super(color, Position.HORSE); // Call parent constructor
     }
 
     // Return horse color
@@ -27,7 +31,7 @@ public class Horse extends ChessPiece {
 
     // Check if the horse can move to the provided position
     @Override
-    public boolean canMoveToPosition(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
+    protected boolean canMove(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
         // Ensure the provided position and target position are within board boundaries
         if (chessBoard.checkPos(line) && chessBoard.checkPos(column) &&
                 chessBoard.checkPos(toLine) && chessBoard.checkPos(toColumn)) {
@@ -38,41 +42,13 @@ public class Horse extends ChessPiece {
                 ChessPiece targetPiece = chessBoard.board[toLine][toColumn];
 
                 // Check if the target position is either empty or occupied by an opponent's piece
-                if (targetPiece == null || !targetPiece.getColor().equals(this.color)) {
-
-                    // Define the possible moves for the horse in an "L" shape
-                    int[][] possibleMoves = {
-                            // Moving 2 squares up and 1 square to the left
-                            {line - 2, column - 1},
-
-                            // Moving 2 squares up and 1 square to the right
-                            {line - 2, column + 1},
-
-                            // Moving 2 squares down and 1 square to the left
-                            {line + 2, column - 1},
-
-                            // Moving 2 squares down and 1 square to the right
-                            {line + 2, column + 1},
-
-                            // Moving 1 square up and 2 squares to the left
-                            {line - 1, column - 2},
-
-                            // Moving 1 square up and 2 squares to the right
-                            {line - 1, column + 2},
-
-                            // Moving 1 square down and 2 squares to the left
-                            {line + 1, column - 2},
-
-                            // Moving 1 square down and 2 squares to the right
-                            {line + 1, column + 2}
-                    };
+                if (targetPiece == null || targetPiece.side != this.side) {
 
-                    // Check if the target position is one of the possible moves
-                    for (int[] move : possibleMoves) {
-                        if (move[0] == toLine && move[1] == toColumn) {
-                            // If the target position matches one of the possible moves, return true
-                            return true;
-                        }
+                    // Look the target up in the precomputed horse moves of the current square
+                    long possibleMoves = Attacks.horse(Position.square(line, column));
+                    if ((possibleMoves & (1L << Position.square(toLine, toColumn))) != 0) {
+                        // If the target position matches one of the possible moves, return true
+                        return true;
                     }
                 }
             }
@@ -1,8 +1,12 @@
 public class King extends ChessPiece {
 
+    // Shared immutable instances, use these instead of creating new pieces
+    public static final King WHITE = new King("White");
+    public static final King BLACK = new King("Black");
+
     // Constructor to initialize the king with a color
     public King(String color) {
-        super(color); // Call the parent constructor to set the color
+        super(color, Position.KING); // Call the parent constructor to set the color
     }
 
     // Return the color of the king
@@ -21,7 +25,7 @@ public class King extends ChessPiece {
 
     // Check if the king can move to the provided position
     @Override
-    public boolean canMoveToPosition(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
+    protected boolean canMove(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
         // Ensure the provided position and target position are within board boundaries
         if (chessBoard.checkPos(line) && chessBoard.checkPos(column) &&
                 chessBoard.checkPos(toLine) && chessBoard.checkPos(toColumn)) {
@@ -32,41 +36,13 @@ public class King extends ChessPiece {
                 ChessPiece targetPiece = chessBoard.board[toLine][toColumn];
 
                 // Check if the target position is empty or contains an opponent's piece
-                if (targetPiece == null || !targetPiece.getColor().equals(this.color)) {
-
-                    // Define the possible moves for the king (1 square in any direction)
-                    int[][] possibleMoves = {
-                            // Moving 1 square up
-                            {line - 1, column},
-
-                            // Moving 1 square down
-                            {line + 1, column},
-
-                            // Moving 1 square to the left
-                            {line, column - 1},
-
-                            // Moving 1 square to the right
-                            {line, column + 1},
-
-                            // Moving 1 square diagonally up-left
-                            {line - 1, column - 1},
-
-                            // Moving 1 square diagonally up-right
-                            {line - 1, column + 1},
-
-                            // Moving 1 square diagonally down-left
-                            {line + 1, column - 1},
-
-                            // Moving 1 square diagonally down-right
-                            {line + 1, column + 1}
-                    };
+                if (targetPiece == null || targetPiece.side != this.side) {
 
-                    // Check if the target position is one of the possible moves
-                    for (int[] move : possibleMoves) {
-                        if (move[0] == toLine && move[1] == toColumn) {
-                            // If the target position matches one of the possible moves, return true
-                            return true;
-                        }
+                    // Look the target up in the precomputed king moves of the current square
+                    long possibleMoves = Attacks.king(Position.square(line, column));
+                    if ((possibleMoves & (1L << Position.square(toLine, toColumn))) != 0) {
+                        // If the target position matches one of the possible moves, return true
+                        return true;
                     }
                 }
             }
@@ -84,25 +60,93 @@ public class King extends ChessPiece {
 
     /*
      * Check if the position of the king is under attack by any opponent's piece
-     * - Check all directions (horizontally, vertically, and diagonally) for opponent's pieces
+     * - Cast rays outward from the position (horizontally, vertically, and diagonally) up to the first piece
+     * - Look up the horse, king and pawn squares that could reach the position
      * - If the king's position is under attack, return true, otherwise false.
      */
 
     // Check if the king's position is under attack by any opponent's piece
     public boolean isUnderAttack(ChessBoard board, int line, int column) {
-        // Iterate through all positions on the board
-        for (int l = 0; l < 8; l++) {
-            for (int c = 0; c < 8; c++) {
-                // Get the piece at the current position
-                ChessPiece piece = board.board[l][c];
-                if (piece != null && !piece.getColor().equals(this.color)) {
-                    // If the piece is an opponent's piece, check if it can move to the king's position
-                    if (piece.canMoveToPosition(board, l, c, line, column)) {
-                        return true; // King is under attack
-                    }
-                }
+        return isUnderAttack(board, line, column, this.side);
+    }
+
+    // Check if a position is under attack by any piece of the opponent of the given color
+    public static boolean isUnderAttack(ChessBoard board, int line, int column, String color) {
+        return isUnderAttack(board, line, column, Position.side(color));
+    }
+
+    // Check if a position is under attack by any piece of the opponent of the given side
+    public static boolean isUnderAttack(ChessBoard board, int line, int column, int side) {
+        if (!Metrics.ENABLED) return attacked(board, line, column, side);
+        long start = System.nanoTime();
+        try {
+            return attacked(board, line, column, side);
+        } finally {
+            Metrics.record(Metrics.IS_UNDER_ATTACK, start);
+        }
+    }
+
+    private static boolean attacked(ChessBoard board, int line, int column, int side) {
+        ChessPiece target = board.board[line][column];
+        // Opponent's pieces can never move onto a position held by one of their own
+        if (target != null && target.side != side) return false;
+
+        int sq = Position.square(line, column);
+        // Horses and kings attack the position from the squares they could jump or step to from it
+        if (hasOpponent(board, Attacks.horse(sq), Position.HORSE, side) || hasOpponent(board, Attacks.king(sq), Position.KING, side)) {
+            return true;
+        }
+
+        // Pawns push onto an empty position and capture diagonally onto an occupied one
+        int forward = side == Position.WHITE ? -1 : 1; // direction the opponent's pawns move in
+        if (target == null) {
+            int pawnLine = line - forward;
+            if (isOpponent(board, pawnLine, column, Position.PAWN, side)) return true;
+            int startLine = side == Position.WHITE ? 6 : 1;
+            if (pawnLine - forward == startLine && board.checkPos(pawnLine) && board.board[pawnLine][column] == null &&
+                    isOpponent(board, startLine, column, Position.PAWN, side)) {
+                return true;
+            }
+        } else if (isOpponent(board, line - forward, column - 1, Position.PAWN, side) ||
+                isOpponent(board, line - forward, column + 1, Position.PAWN, side)) {
+            return true;
+        }
+
+        // Walk every straight and diagonal ray up to the first piece
+        return slides(board, line, column, 1, 0, Position.ROOK, side) || slides(board, line, column, -1, 0, Position.ROOK, side) ||
+                slides(board, line, column, 0, 1, Position.ROOK, side) || slides(board, line, column, 0, -1, Position.ROOK, side) ||
+                slides(board, line, column, 1, 1, Position.BISHOP, side) || slides(board, line, column, 1, -1, Position.BISHOP, side) ||
+                slides(board, line, column, -1, 1, Position.BISHOP, side) || slides(board, line, column, -1, -1, Position.BISHOP, side);
+    }
+
+    // Check if the first piece along one ray is an opponent's queen or a piece of the given type
+    private static boolean slides(ChessBoard board, int line, int column, int deltaLine, int deltaColumn, int type, int side) {
+        int l = line + deltaLine;
+        int c = column + deltaColumn;
+        while (board.checkPos(l) && board.checkPos(c)) {
+            ChessPiece piece = board.board[l][c];
+            if (piece != null) {
+                return piece.side != side && (piece.type == type || piece.type == Position.QUEEN);
             }
+            l += deltaLine;
+            c += deltaColumn;
+        }
+        return false;
+    }
+
+    // Check if any square of the bitboard holds an opponent's piece of the given type
+    private static boolean hasOpponent(ChessBoard board, long squares, int type, int side) {
+        for (; squares != 0; squares &= squares - 1) {
+            int sq = Long.numberOfTrailingZeros(squares);
+            if (isOpponent(board, Position.line(sq), Position.column(sq), type, side)) return true;
         }
-        return false; // King is not under attack
+        return false;
+    }
+
+    // Check if (line, column) is on the board and holds an opponent's piece of the given type
+    private static boolean isOpponent(ChessBoard board, int line, int column, int type, int side) {
+        if (!board.checkPos(line) || !board.checkPos(column)) return false;
+        ChessPiece piece = board.board[line][column];
+        return piece != null && piece.side != side && piece.type == type;
     }
 }
@@ -0,0 +1,107 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class LazySmp implements Engine {
+
+    private final TranspositionTable table;
+    private final Search[] searches; // searches[0] runs in the calling thread, the rest are helpers
+    private final ExecutorService helpers;
+    private int best; // index of the search whose move was returned last
+
+    // Constructor for one search thread per available core
+    public LazySmp(TranspositionTable table) {
+        this(Runtime.getRuntime().availableProcessors(), table);
+    }
+
+    /*
+     Constructor for the given number of threads sharing one table. The threads search
+     the same root independently, with their own killers and history; what one thread
+     learns reaches the others only through the lock-free table, so nothing is locked.
+    */
+    public LazySmp(int threads, TranspositionTable table) {
+        if (threads < 1) throw new IllegalArgumentException("threads " + threads);
+        this.table = table;
+        searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(table);
+        }
+        helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true); // an idle pool must not keep the program alive
+            return thread;
+        });
+    }
+
+    /*
+     Search like Search.bestMove() on all threads. Helpers with an odd number start one
+     ply deeper, so the threads spread over neighbouring depths instead of repeating
+     each other's work. When the main thread finishes, the helpers are stopped and the
+     move of the thread that finished the deepest iteration is returned.
+    */
+    @Override
+    public int bestMove(ChessBoard board, int maxDepth, long millis, long maxNodes) {
+        Position root = board.position();
+        GameHistory game = board.history();
+        long nodesEach = maxNodes > 0 ? Math.max(1, maxNodes / searches.length) : 0;
+        table.newSearch();
+        for (Search search : searches) {
+            search.reset();
+        }
+        Future<?>[] futures = new Future<?>[searches.length];
+        for (int i = 1; i < searches.length; i++) {
+            Search search = searches[i];
+            int firstDepth = 1 + (i & 1);
+            futures[i] = helpers.submit(() -> search.run(root, game, firstDepth, maxDepth, millis, nodesEach));
+        }
+        int move = searches[0].run(root, game, 1, maxDepth, millis, nodesEach);
+
+        for (Search search : searches) {
+            search.stop();
+        }
+        best = 0;
+        for (int i = 1; i < searches.length; i++) {
+            try {
+                futures[i].get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            if (searches[i].depth() > searches[best].depth()) best = i;
+        }
+        return best == 0 ? move : searches[best].move();
+    }
+
+    // Score of the returned move from the point of view of the player to move
+    @Override
+    public int score() {
+        return searches[best].score();
+    }
+
+    // Depth of the iteration the returned move comes from
+    @Override
+    public int depth() {
+        return searches[best].depth();
+    }
+
+    // Positions visited by all threads together
+    @Override
+    public long nodes() {
+        long nodes = 0;
+        for (Search search : searches) {
+            nodes += search.nodes();
+        }
+        return nodes;
+    }
+
+    public int threads() {
+        return searches.length;
+    }
+
+    // Stop the helper threads for good
+    public void shutdown() {
+        if (helpers != null) helpers.shutdownNow();
+    }
+}
@@ -1,98 +1,229 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class Main {
 
     public static ChessBoard buildBoard() {
         ChessBoard board = new ChessBoard("White");
 
-        board.board[0][0] = new Rook("White");
-        board.board[0][1] = new Horse("White");
-        board.board[0][2] = new Bishop("White");
-        board.board[0][3] = new Queen("White");
-        board.board[0][4] = new King("White");
-        board.board[0][5] = new Bishop("White");
-        board.board[0][6] = new Horse("White");
-        board.board[0][7] = new Rook("White");
-        board.board[1][0] = new Pawn("White");
-        board.board[1][1] = new Pawn("White");
-        board.board[1][2] = new Pawn("White");
-        board.board[1][3] = new Pawn("White");
-        board.board[1][4] = new Pawn("White");
-        board.board[1][5] = new Pawn("White");
-        board.board[1][6] = new Pawn("White");
-        board.board[1][7] = new Pawn("White");
-
-        board.board[7][0] = new Rook("Black");
-        board.board[7][1] = new Horse("Black");
-        board.board[7][2] = new Bishop("Black");
-        board.board[7][3] = new Queen("Black");
-        board.board[7][4] = new King("Black");
-        board.board[7][5] = new Bishop("Black");
-        board.board[7][6] = new Horse("Black");
-        board.board[7][7] = new Rook("Black");
-        board.board[6][0] = new Pawn("Black");
-        board.board[6][1] = new Pawn("Black");
-        board.board[6][2] = new Pawn("Black");
-        board.board[6][3] = new Pawn("Black");
-        board.board[6][4] = new Pawn("Black");
-        board.board[6][5] = new Pawn("Black");
-        board.board[6][6] = new Pawn("Black");
-        board.board[6][7] = new Pawn("Black");
+        board.board[0][0] = Rook.WHITE;
+        board.board[0][1] = Horse.WHITE;
+        board.board[0][2] = Bishop.WHITE;
+        board.board[0][3] = Queen.WHITE;
+        board.board[0][4] = King.WHITE;
+        board.board[0][5] = Bishop.WHITE;
+        board.board[0][6] = Horse.WHITE;
+        board.board[0][7] = Rook.WHITE;
+        board.board[1][0] = Pawn.WHITE;
+        board.board[1][1] = Pawn.WHITE;
+        board.board[1][2] = Pawn.WHITE;
+        board.board[1][3] = Pawn.WHITE;
+        board.board[1][4] = Pawn.WHITE;
+        board.board[1][5] = Pawn.WHITE;
+        board.board[1][6] = Pawn.WHITE;
+        board.board[1][7] = Pawn.WHITE;
+
+        board.board[7][0] = Rook.BLACK;
+        board.board[7][1] = Horse.BLACK;
+        board.board[7][2] = Bishop.BLACK;
+        board.board[7][3] = Queen.BLACK;
+        board.board[7][4] = King.BLACK;
+        board.board[7][5] = Bishop.BLACK;
+        board.board[7][6] = Horse.BLACK;
+        board.board[7][7] = Rook.BLACK;
+        board.board[6][0] = Pawn.BLACK;
+        board.board[6][1] = Pawn.BLACK;
+        board.board[6][2] = Pawn.BLACK;
+        board.board[6][3] = Pawn.BLACK;
+        board.board[6][4] = Pawn.BLACK;
+        board.board[6][5] = Pawn.BLACK;
+        board.board[6][6] = Pawn.BLACK;
+        board.board[6][7] = Pawn.BLACK;
         return board;
     }
 
     public static void main(String[] args) {
+        // 'java Main perft 5' or 'java Main divide 5' measures move generation without the interactive game,
+        // 'pperft'/'pdivide' do the same on all cores
+        if (args.length == 2 && args[0].matches("p?(perft|divide)")) {
+            ForkJoinPool pool = args[0].startsWith("p") ? ForkJoinPool.commonPool() : null;
+            Perft.run(buildBoard().position(), Integer.parseInt(args[1]), args[0].endsWith("divide"), pool, System.out);
+            return;
+        }
+
+        // 'java Main analyse 6' searches every first move of the game to that depth on all cores
+        if (args.length == 2 && args[0].equals("analyse")) {
+            Perft.analyse(buildBoard().position(), Integer.parseInt(args[1]), ForkJoinPool.commonPool(), System.out);
+            return;
+        }
+
+        // 'java Main pgn games.pgn' replays every game of the file and prints one line per game
+        if (args.length == 2 && args[0].equals("pgn")) {
+            replayPgn(Path.of(args[1]));
+            return;
+        }
+
+        // 'java Main validate games.txt [report.txt]' checks whole files of games on all cores
+        if ((args.length == 2 || args.length == 3) && args[0].equals("validate")) {
+            int status = validate(Path.of(args[1]), args.length == 3 ? Path.of(args[2]) : null);
+            if (status != 0) System.exit(status);
+            return;
+        }
+
+        // 'java Main book games.pgn book.bin 16' writes an opening book of the first 16 moves of every game
+        if ((args.length == 3 || args.length == 4) && args[0].equals("book")) {
+            try {
+                int plies = args.length == 4 ? Integer.parseInt(args[3]) : 20;
+                long entries = OpeningBook.build(Path.of(args[1]), plies, Path.of(args[2]));
+                System.out.println("Записей в книге: " + entries);
+            } catch (IOException | NumberFormatException e) {
+                System.out.println("Не удалось построить книгу: " + e.getMessage());
+            }
+            return;
+        }
+
+        // 'java Main tablebase KBNK tables' writes the endgame table KBNK.tb into the directory tables
+        if ((args.length == 2 || args.length == 3) && args[0].equals("tablebase")) {
+            try {
+                long start = System.currentTimeMillis();
+                Tablebase tablebase = Tablebase.generate(Tablebase.parse(args[1]));
+                Path file = Path.of(args.length == 3 ? args[2] : ".", tablebase.name() + ".tb");
+                tablebase.write(file);
+                System.out.println("Таблица " + file + " построена за " + (System.currentTimeMillis() - start) + " мс");
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Не удалось построить таблицу: " + e.getMessage());
+            }
+            return;
+        }
+
+        // 'java -Dbook=book.bin Main' lets 'hint' and 'ai' play from an opening book,
+        // 'java -Dtablebases=tables Main' answers their endgames from the tables in the directory
+        OpeningBook book = openBook(System.getProperty("book"));
+        Tablebase[] tablebases = openTablebases(System.getProperty("tablebases"));
+
+        // 'java Main server 7000' hosts many games at once, one per connection
+        if (args.length == 2 && args[0].equals("server")) {
+            try {
+                GameServer server = new GameServer(Integer.parseInt(args[1]), book, tablebases);
+                System.out.println("Сервер слушает порт " + server.port());
+                server.run();
+            } catch (IOException e) {
+                System.out.println("Не удалось запустить сервер: " + e.getMessage());
+            }
+            return;
+        }
+
+        // 'java -Dthreads=4 Main' limits the search threads, by default every core searches.
+        // The search and its 64 MB table are built by the first 'hint' or 'ai' and kept for the next ones.
+        GameSession session = new GameSession(new Supplier<LazySmp>() {
+            private LazySmp search;
 
-        ChessBoard board = buildBoard();
+            @Override
+            public LazySmp get() {
+                if (search == null) {
+                    search = new LazySmp(Integer.getInteger("threads", Runtime.getRuntime().availableProcessors()),
+                            new TranspositionTable(64, TranspositionTable.DEPTH_PREFERRED));
+                }
+                return search;
+            }
+        }, book, tablebases);
         Scanner scanner = new Scanner(System.in);
-        System.out.println("""
-               Чтобы проверить игру надо вводить команды:
-               'exit' - для выхода
-               'replay' - для перезапуска игры
-               'castling0' или 'castling7' - для рокировки по соответствующей линии
-               'move 1 1 2 3' - для передвижения фигуры с позиции 1 1 на 2 3(поле это двумерный массив от 0 до 7)
-               Проверьте могут ли фигуры ходить друг сквозь друга, корректно ли съедают друг друга, можно ли поставить шах и сделать рокировку?""");
+        System.out.println(GameSession.HELP);
         System.out.println();
-        board.printBoard();
-        while (true) {
-            String s = scanner.nextLine();
-            if (s.equals("exit")) break;
-            else if (s.equals("replay")) {
-                System.out.println("Заново");
-                board = buildBoard();
-                board.printBoard();
-            } else {
-                if (s.equals("castling0")) {
-                    if (board.castling0()) {
-                        System.out.println("Рокировка удалась");
-                        board.printBoard();
-                    } else {
-                        System.out.println("Рокировка не удалась");
-                    }
-                } else if (s.equals("castling7")) {
-                    if (board.castling7()) {
-                        System.out.println("Рокировка удалась");
-                        board.printBoard();
-                    } else {
-                        System.out.println("Рокировка не удалась");
-                    }
-                } else if (s.contains("move")) {
-                    String[] a = s.split(" ");
-                    try {
-                        int line = Integer.parseInt(a[1]);
-                        int column = Integer.parseInt(a[2]);
-                        int toLine = Integer.parseInt(a[3]);
-                        int toColumn = Integer.parseInt(a[4]);
-                        if (board.moveToPosition(line, column, toLine, toColumn)) {
-                            System.out.println("Успешно передвинулись");
-                            board.printBoard();
-                        } else System.out.println("Передвижение не удалось");
-                    } catch (Exception e) {
-                        System.out.println("Вы что-то ввели не так, попробуйте ещё раз");
-                    }
+        session.board().printBoard();
+        while (session.execute(scanner.nextLine(), System.out)) ;
+    }
 
+    // Open the book file, or return null when there is no file or it cannot be read
+    static OpeningBook openBook(String file) {
+        if (file == null) return null;
+        try {
+            return new OpeningBook(Path.of(file));
+        } catch (IOException e) {
+            System.out.println("Не удалось открыть книгу " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Open every *.tb file of the directory, skipping those that cannot be read
+    static Tablebase[] openTablebases(String directory) {
+        if (directory == null) return new Tablebase[0];
+        List<Tablebase> tablebases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(Path.of(directory))) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".tb")).sorted().toList()) {
+                try {
+                    tablebases.add(Tablebase.read(file));
+                } catch (IOException e) {
+                    System.out.println("Не удалось открыть таблицу " + file + ": " + e.getMessage());
                 }
             }
+        } catch (IOException e) {
+            System.out.println("Не удалось открыть таблицы " + directory + ": " + e.getMessage());
+        }
+        return tablebases.toArray(new Tablebase[0]);
+    }
+
+    // Replay all games of a PGN file and print the number of moves, the result and the final position or the error
+    static void replayPgn(Path file) {
+        San san = new San();
+        try (PgnReader reader = new PgnReader(file)) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                ChessBoard board;
+                int played;
+                try {
+                    board = game.startBoard();
+                    played = game.replay(board, san);
+                } catch (IllegalArgumentException e) {
+                    // A broken [FEN] tag spoils only its own game
+                    System.out.println("Партия " + game.number() + ": ошибка: " + e.getMessage());
+                    continue;
+                }
+                System.out.println("Партия " + game.number() + ": ходов " + played + "/" + game.plies()
+                        + ", результат " + game.result() + ", "
+                        + (game.error() == null ? Fen.toFen(board) : "ошибка: " + game.error()));
+            }
+        } catch (IOException e) {
+            System.out.println("Не удалось прочитать " + file + ": " + e.getMessage());
+        }
+    }
+
+    /*
+     Validate a file of games and write the problems to the report file, or to the console
+     when there is none. Returns the exit status: 0 when every move passed the rules,
+     1 when some were illegal or a game could not be checked, 2 when the file was not checked.
+    */
+    static int validate(Path file, Path reportFile) {
+        PrintStream reportStream;
+        try {
+            reportStream = reportFile == null ? null : new PrintStream(new BufferedOutputStream(Files.newOutputStream(reportFile)), false);
+        } catch (IOException e) {
+            System.out.println("Не удалось создать " + reportFile + ": " + e.getMessage());
+            return 2;
+        }
+        // Only a report file is ours to close, the console stays open for the summary
+        try (reportStream) {
+            PrintStream report = reportStream == null ? System.out : reportStream;
+            Validator.Summary summary = Validator.validate(file, report, Runtime.getRuntime().availableProcessors());
+            report.flush();
+            System.out.println(summary);
+            return summary.illegal + summary.failed == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.out.println("Не удалось прочитать " + file + ": " + e.getMessage());
+        } catch (IllegalStateException e) {
+            System.out.println("Проверка " + file + " прервана: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        return 2;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,201 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.ObjectName;
+
+public class Metrics {
+
+    /*
+     'java -Dmetrics=true Main' switches the instrumentation on. The flag is a static
+     final field, so with it off the JIT folds every 'if (Metrics.ENABLED)' away and the
+     rule checks run exactly as uninstrumented code. With it on, the counters and
+     latency histograms are published over JMX as chess:type=Metrics and printed to
+     System.err every -Dmetrics.interval seconds (60 by default, 0 for never).
+    */
+    public static final boolean ENABLED = Boolean.getBoolean("metrics");
+
+    // What is measured; a piece's canMoveToPosition is CAN_MOVE + its type
+    public static final int MOVE_TO_POSITION = 0;
+    public static final int CAN_MOVE = 1;
+    public static final int IS_UNDER_ATTACK = CAN_MOVE + 6;
+    public static final int CASTLING0 = IS_UNDER_ATTACK + 1;
+    public static final int CASTLING7 = CASTLING0 + 1;
+
+    private static final String[] NAMES = {
+            "ChessBoard.moveToPosition",
+            "Pawn.canMoveToPosition", "Horse.canMoveToPosition", "Bishop.canMoveToPosition",
+            "Rook.canMoveToPosition", "Queen.canMoveToPosition", "King.canMoveToPosition",
+            "King.isUnderAttack", "ChessBoard.castling0", "ChessBoard.castling7"};
+
+    private static final Histogram[] HISTOGRAMS = new Histogram[NAMES.length];
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) HISTOGRAMS[i] = new Histogram();
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName("chess:type=Metrics"));
+            } catch (Exception e) {
+                System.err.println("Метрики не опубликованы в JMX: " + e.getMessage());
+            }
+            long interval = Long.getLong("metrics.interval", 60);
+            if (interval > 0) {
+                ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+                    Thread thread = new Thread(task, "metrics");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                dumper.scheduleAtFixedRate(() -> dump(System.err), interval, interval, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    // Count one call of what and its time since start, a System.nanoTime() reading
+    public static void record(int what, long start) {
+        HISTOGRAMS[what].record(System.nanoTime() - start);
+    }
+
+    // Print one line per measured method: calls, mean and percentiles of the time per call
+    public static void dump(PrintStream out) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < NAMES.length; i++) {
+            Histogram histogram = HISTOGRAMS[i];
+            text.append(NAMES[i]).append(": вызовов ").append(histogram.count())
+                    .append(", среднее ").append(histogram.mean())
+                    .append(" нс, p50 ").append(histogram.percentile(0.5))
+                    .append(", p99 ").append(histogram.percentile(0.99))
+                    .append(", p99.9 ").append(histogram.percentile(0.999))
+                    .append(", макс ").append(histogram.max()).append(" нс")
+                    .append(System.lineSeparator());
+        }
+        out.print(text);
+    }
+
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS) histogram.reset();
+    }
+
+    static Map<String, Long> collect(ToLongFunction<Histogram> value) {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (int i = 0; i < NAMES.length; i++) values.put(NAMES[i], value.applyAsLong(HISTOGRAMS[i]));
+        return values;
+    }
+
+    /*
+     Latency histogram in the manner of HdrHistogram: values below 16 ns get a bucket
+     each, above that every power of two is split into 16 buckets, so any value is
+     known to within 1/16 and 960 buckets cover every long. Recording is one
+     increment of an atomic bucket plus LongAdders, with no locks, so any number of
+     threads record at once; readers see a snapshot that may be a few calls behind.
+    */
+    static class Histogram {
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucket(nanos));
+            count.increment();
+            total.add(nanos);
+            if (nanos > max.get()) max.accumulateAndGet(nanos, Math::max);
+        }
+
+        long count() {
+            return count.sum();
+        }
+
+        long mean() {
+            long calls = count.sum();
+            return calls == 0 ? 0 : total.sum() / calls;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        // Smallest value at or above the given fraction of the recorded calls, to within 1/16
+        long percentile(double fraction) {
+            long[] counts = new long[BUCKETS];
+            long calls = 0;
+            for (int i = 0; i < BUCKETS; i++) calls += counts[i] = buckets.get(i);
+            long rank = (long) Math.ceil(fraction * calls);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) return Math.min(highest(i), max.get());
+            }
+            return 0;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) buckets.set(i, 0);
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) return (int) value;
+            int magnitude = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+            return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        // Largest value counted in the bucket
+        private static long highest(int bucket) {
+            if (bucket < SUB_BUCKETS) return bucket;
+            int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            long low = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << (magnitude - SUB_BUCKET_BITS);
+            return low + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+        }
+    }
+
+    // The JMX view, one entry per measured method in every attribute
+    private static class Bean implements MetricsMXBean {
+        @Override
+        public Map<String, Long> getCalls() {
+            return collect(Histogram::count);
+        }
+
+        @Override
+        public Map<String, Long> getMeanNanos() {
+            return collect(Histogram::mean);
+        }
+
+        @Override
+        public Map<String, Long> getMedianNanos() {
+            return collect(histogram -> histogram.percentile(0.5));
+        }
+
+        @Override
+        public Map<String, Long> getP99Nanos() {
+            return collect(histogram -> histogram.percentile(0.99));
+        }
+
+        @Override
+        public Map<String, Long> getMaxNanos() {
+            return collect(Histogram::max);
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+import java.util.Map;
+
+// What Metrics publishes over JMX: per measured method, its calls and time per call in nanoseconds
+public interface MetricsMXBean {
+
+    Map<String, Long> getCalls();
+
+    Map<String, Long> getMeanNanos();
+
+    Map<String, Long> getMedianNanos();
+
+    Map<String, Long> getP99Nanos();
+
+    Map<String, Long> getMaxNanos();
+
+    void reset();
+}
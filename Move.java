@@ -0,0 +1,47 @@
+public class Move {
+
+    // Move flags stored above the from/to squares
+    public static final int NORMAL = 0;
+    public static final int CASTLING0 = 1; // same as ChessBoard.castling0()
+    public static final int CASTLING7 = 2; // same as ChessBoard.castling7()
+
+    /*
+     Moves are packed into a single int so generators can fill a reusable int[]:
+     bits 0-5 hold the start square, bits 6-11 the target square, bits 12-13 the flag.
+     Squares use Position numbering (line * 8 + column).
+    */
+    private Move() {
+    }
+
+    public static int of(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int of(int from, int to, int flag) {
+        return from | (to << 6) | (flag << 12);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flag(int move) {
+        return (move >>> 12) & 3;
+    }
+
+    public static boolean isCastling(int move) {
+        return flag(move) != NORMAL;
+    }
+
+    // Return the move in the same command format Main accepts, e.g. "move 1 4 3 4" or "castling0"
+    public static String toString(int move) {
+        if (flag(move) == CASTLING0) return "castling0";
+        if (flag(move) == CASTLING7) return "castling7";
+        return "move " + Position.line(from(move)) + " " + Position.column(from(move)) + " "
+                + Position.line(to(move)) + " " + Position.column(to(move));
+    }
+}
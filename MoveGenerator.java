@@ -0,0 +1,119 @@
+public class MoveGenerator {
+
+    /*
+     Moves are written into a caller-owned int[] starting at index start, and the
+     index after the last written move is returned. Passing a different start for
+     every ply lets a search share one buffer without allocating anything.
+     The buffer must have room for MAX_MOVES entries after start.
+    */
+    public static final int MAX_MOVES = 256;
+
+    private MoveGenerator() {
+    }
+
+    /*
+     Generate every move ChessBoard.moveToPosition(), castling0() and castling7()
+     would accept for the side to move, without checking whether the own king is left attacked
+    */
+    public static int generatePseudoLegal(Position position, int[] moves, int start) {
+        int side = position.sideToMove;
+        int base = side * 6;
+        long own = position.occupancy[side];
+        long enemy = position.occupancy[side ^ 1];
+        long empty = ~position.occupied;
+        int count = start;
+
+        // Pawns push forward one or two squares and capture diagonally
+        int forward = side == Position.WHITE ? 8 : -8;
+        int startLine = side == Position.WHITE ? 1 : 6;
+        for (long pawns = position.pieces[base + Position.PAWN]; pawns != 0; pawns &= pawns - 1) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            int to = from + forward;
+            if (to >= 0 && to < 64 && (empty & (1L << to)) != 0) {
+                moves[count++] = Move.of(from, to);
+                if (Position.line(from) == startLine && (empty & (1L << (to + forward))) != 0) {
+                    moves[count++] = Move.of(from, to + forward);
+                }
+            }
+            count = add(moves, count, from, Attacks.pawn(side, from) & enemy);
+        }
+
+        for (long horses = position.pieces[base + Position.HORSE]; horses != 0; horses &= horses - 1) {
+            int from = Long.numberOfTrailingZeros(horses);
+            count = add(moves, count, from, Attacks.horse(from) & ~own);
+        }
+        for (long bishops = position.pieces[base + Position.BISHOP]; bishops != 0; bishops &= bishops - 1) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            count = add(moves, count, from, Attacks.bishop(from, position.occupied) & ~own);
+        }
+        for (long rooks = position.pieces[base + Position.ROOK]; rooks != 0; rooks &= rooks - 1) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            count = add(moves, count, from, Attacks.rook(from, position.occupied) & ~own);
+        }
+        for (long queens = position.pieces[base + Position.QUEEN]; queens != 0; queens &= queens - 1) {
+            int from = Long.numberOfTrailingZeros(queens);
+            count = add(moves, count, from, Attacks.queen(from, position.occupied) & ~own);
+        }
+        for (long kings = position.pieces[base + Position.KING]; kings != 0; kings &= kings - 1) {
+            int from = Long.numberOfTrailingZeros(kings);
+            count = add(moves, count, from, Attacks.king(from) & ~own);
+        }
+
+        // Castling follows castling0()/castling7(): path empty and the king's target not reachable
+        int homeLine = side == Position.WHITE ? 0 : 56;
+        int rights = position.castlingRights >> (side * 2);
+        if ((rights & Position.WHITE_CASTLING0) != 0
+                && (position.occupied & (0xEL << homeLine)) == 0
+                && !position.canBeReached(homeLine + 2, side ^ 1)) {
+            moves[count++] = Move.of(homeLine + 4, homeLine + 2, Move.CASTLING0);
+        }
+        if ((rights & Position.WHITE_CASTLING7) != 0
+                && (position.occupied & (0x60L << homeLine)) == 0
+                && !position.canBeReached(homeLine + 6, side ^ 1)) {
+            moves[count++] = Move.of(homeLine + 4, homeLine + 6, Move.CASTLING7);
+        }
+        return count;
+    }
+
+    // Generate the pseudo-legal moves that do not leave the own king attacked
+    public static int generateLegal(Position position, int[] moves, int start) {
+        int end = generatePseudoLegal(position, moves, start);
+        int count = start;
+        for (int i = start; i < end; i++) {
+            if (isLegal(position, moves[i])) moves[count++] = moves[i];
+        }
+        return count;
+    }
+
+    // Check that a pseudo-legal move does not leave the mover's king attacked
+    public static boolean isLegal(Position position, int move) {
+        int side = position.sideToMove;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        long occupied = position.occupied & ~(1L << from) | (1L << to);
+        if (Move.isCastling(move)) {
+            int rookFrom = Move.flag(move) == Move.CASTLING0 ? from - 4 : from + 3;
+            int rookTo = Move.flag(move) == Move.CASTLING0 ? from - 1 : from + 1;
+            occupied = occupied & ~(1L << rookFrom) | (1L << rookTo);
+        }
+
+        int king;
+        if (Position.typeOf(position.squares[from]) == Position.KING) {
+            king = to;
+        } else {
+            long kings = position.pieces[Position.piece(side, Position.KING)];
+            if (kings == 0) return true; // nothing to protect
+            king = Long.numberOfTrailingZeros(kings);
+        }
+        // A captured piece on the target square no longer attacks anything
+        return !position.isAttacked(king, side ^ 1, occupied, ~(1L << to));
+    }
+
+    // Add one move from the given square to every target in the bitboard
+    private static int add(int[] moves, int count, int from, long targets) {
+        for (; targets != 0; targets &= targets - 1) {
+            moves[count++] = Move.of(from, Long.numberOfTrailingZeros(targets));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,237 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class OpeningBook implements Closeable {
+
+    /*
+     Entries use the Polyglot layout, 16 big-endian bytes sorted by unsigned key:
+     key (8), move (2), weight (2), learn (4). Moves are Polyglot moves as well,
+     target square in bits 0-5 and start square in bits 6-11, castling written as
+     the king taking its own rook. The key is this project's Zobrist key (Zobrist.java),
+     not Polyglot's, so books must be built with build() rather than downloaded.
+    */
+    public static final int ENTRY_SIZE = 16;
+
+    // Files are mapped in segments because a single mapping cannot exceed 2 GB; entries never cross one
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private static final int INTERPOLATION_STEPS = 8; // then the search falls back to halving
+    private static final int BINARY_SEARCH_RANGE = 16; // entries left when interpolation stops paying off
+
+    // Book moves, weights and legal moves for pick(); one set per thread, as the sessions of a server share one book
+    private static final ThreadLocal<int[][]> BUFFERS = ThreadLocal.withInitial(() -> new int[3][MoveGenerator.MAX_MOVES]);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long entries;
+
+    /*
+     Open a book file. Only the mapping is set up, nothing is read, so opening takes
+     the same time for any size and the pages the lookups touch stay in the OS cache.
+    */
+    public OpeningBook(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        entries = channel.size() / ENTRY_SIZE;
+        long size = entries * ENTRY_SIZE;
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+        }
+    }
+
+    // Number of entries in the book
+    public long size() {
+        return entries;
+    }
+
+    /*
+     Fill moves and weights with the book moves for the position key and return how
+     many there are. An interpolation search finds the first entry of the key, so a
+     lookup touches only a handful of pages of the mapped file.
+    */
+    public int probe(long key, int[] moves, int[] weights) {
+        int count = 0;
+        for (long index = firstIndex(key); index < entries && key(index) == key && count < moves.length; index++) {
+            ByteBuffer segment = segments[(int) (index * ENTRY_SIZE / SEGMENT_SIZE)];
+            int offset = (int) (index * ENTRY_SIZE % SEGMENT_SIZE);
+            moves[count] = segment.getShort(offset + 8) & 0xFFFF;
+            weights[count] = segment.getShort(offset + 10) & 0xFFFF;
+            count++;
+        }
+        return count;
+    }
+
+    // Book move with the highest weight for the board, or 0 when the position is not in the book
+    public int bestMove(ChessBoard board) {
+        return pick(board, null);
+    }
+
+    // Book move for the board chosen at random in proportion to the weights, or 0 when there is none
+    public int randomMove(ChessBoard board, Random random) {
+        return pick(board, random);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*
+     Write a book of the positions reached in the first maxPlies moves of every game
+     of a PGN file, each move weighted by how often it was played there.
+    */
+    public static long build(Path pgn, int maxPlies, Path book) throws IOException {
+        Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+        San san = new San();
+        try (PgnReader reader = new PgnReader(pgn)) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                if (game.tag("FEN") != null) continue; // only games from the usual start
+                ChessBoard board = Main.buildBoard();
+                for (int ply = 0; ply < Math.min(maxPlies, game.plies()); ply++) {
+                    int move = san.decode(board, game.san(ply));
+                    if (move < 0) break;
+                    counts.computeIfAbsent(board.position().hash(), key -> new HashMap<>())
+                            .merge(toPolyglot(move), 1, Integer::sum);
+                    board.playMove(move);
+                }
+            }
+        }
+
+        List<Long> keys = new ArrayList<>(counts.keySet());
+        keys.sort(Long::compareUnsigned);
+        long written = 0;
+        try (FileChannel out = FileChannel.open(book, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(ENTRY_SIZE * 4096);
+            for (long key : keys) {
+                for (Map.Entry<Integer, Integer> entry : counts.get(key).entrySet()) {
+                    if (buffer.remaining() < ENTRY_SIZE) write(out, buffer);
+                    buffer.putLong(key);
+                    buffer.putShort((short) (int) entry.getKey());
+                    buffer.putShort((short) Math.min(entry.getValue(), 0xFFFF));
+                    buffer.putInt(0);
+                    written++;
+                }
+            }
+            write(out, buffer);
+        }
+        return written;
+    }
+
+    // Polyglot move for a packed move: castling becomes the king taking its own rook
+    static int toPolyglot(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (Move.flag(move) == Move.CASTLING0) to = from - 4;
+        else if (Move.flag(move) == Move.CASTLING7) to = from + 3;
+        return to | from << 6;
+    }
+
+    // Packed move for a Polyglot move on the board
+    static int fromPolyglot(ChessBoard board, int polyglotMove) {
+        int from = polyglotMove >> 6 & 63;
+        int to = polyglotMove & 63;
+        ChessPiece piece = board.board[Position.line(from)][Position.column(from)];
+        ChessPiece target = board.board[Position.line(to)][Position.column(to)];
+        if (piece != null && target != null && piece.type == Position.KING && target.type == Position.ROOK
+                && piece.side == target.side) {
+            return to < from ? Move.of(from, from - 2, Move.CASTLING0) : Move.of(from, from + 2, Move.CASTLING7);
+        }
+        return Move.of(from, to);
+    }
+
+    private int pick(ChessBoard board, Random random) {
+        int[][] buffers = BUFFERS.get();
+        int[] bookMoves = buffers[0];
+        int[] weights = buffers[1];
+        int count = probe(board.position().hash(), bookMoves, weights);
+        if (count == 0) return 0;
+
+        // Skip moves the rules reject, a book built for other rules or a key collision could hold some
+        int[] moves = buffers[2];
+        int legal = board.generateMoves(moves);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            int move = fromPolyglot(board, bookMoves[i]);
+            for (int j = 0; j < legal; j++) {
+                if (moves[j] == move) {
+                    bookMoves[kept] = move;
+                    weights[kept++] = weights[i];
+                    break;
+                }
+            }
+        }
+        count = kept;
+        if (count == 0) return 0;
+
+        int best = 0;
+        if (random == null) {
+            for (int i = 1; i < count; i++) {
+                if (weights[i] > weights[best]) best = i;
+            }
+            return bookMoves[best];
+        }
+        int total = 0;
+        for (int i = 0; i < count; i++) total += weights[i];
+        if (total == 0) return bookMoves[random.nextInt(count)];
+        int r = random.nextInt(total);
+        while (r >= weights[best]) r -= weights[best++];
+        return bookMoves[best];
+    }
+
+    /*
+     Index of the first entry whose key is not below the given key, comparing keys as
+     unsigned numbers. Zobrist keys are spread evenly, so guessing the position from
+     the key's value (interpolation) lands next to it in a few steps where halving the
+     range would touch about log2(size) pages of a book of several GB; a plain binary
+     search finishes off the last few entries and any badly distributed range.
+    */
+    private long firstIndex(long key) {
+        long low = 0;
+        long high = entries; // the answer lies in [low, high]
+        double target = ordered(key);
+        for (int step = 0; step < INTERPOLATION_STEPS && high - low > BINARY_SEARCH_RANGE; step++) {
+            long lowKey = key(low);
+            long highKey = key(high - 1);
+            if (Long.compareUnsigned(lowKey, key) >= 0) return low;
+            if (Long.compareUnsigned(highKey, key) < 0) return high;
+            double fraction = (target - ordered(lowKey)) / (ordered(highKey) - ordered(lowKey));
+            long guess = Math.min(high - 1, Math.max(low, low + (long) (fraction * (high - 1 - low))));
+            if (Long.compareUnsigned(key(guess), key) < 0) low = guess + 1;
+            else high = guess;
+        }
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(middle), key) < 0) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // The key as a number that sorts like the unsigned key
+    private static double ordered(long key) {
+        return (double) (key ^ Long.MIN_VALUE);
+    }
+
+    private long key(long index) {
+        return segments[(int) (index * ENTRY_SIZE / SEGMENT_SIZE)].getLong((int) (index * ENTRY_SIZE % SEGMENT_SIZE));
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) out.write(buffer);
+        buffer.clear();
+    }
+}
@@ -1,8 +1,12 @@
 public class Pawn extends ChessPiece {
 
+    // Shared immutable instances, use these instead of creating new pieces
+    public static final Pawn WHITE = new Pawn("White");
+    public static final Pawn BLACK = new Pawn("Black");
+
     // Constructor
     public Pawn(String color) {
-        super(color); // Call the parent constructor
+        super(color, Position.PAWN); // Call the parent constructor
     }
 
     // Return the color of the pawn
@@ -28,7 +32,7 @@ public class Pawn extends ChessPiece {
 
     // Check if the pawn can move to the provided position
     @Override
-    public boolean canMoveToPosition(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
+    protected boolean canMove(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
         // Ensure the provided position and target position are within board boundaries
         if (chessBoard.checkPos(line) && chessBoard.checkPos(column) &&
                 chessBoard.checkPos(toLine) && chessBoard.checkPos(toColumn)) {
@@ -40,7 +44,7 @@ public class Pawn extends ChessPiece {
 
                 // Define movement rules for the pawn
                 // White pawns move up the board (line increases)
-                if (this.color.equals("White")) {
+                if (this.side == Position.WHITE) {
                     // Check if the pawn is moving straight forward (not capturing)
                     if (column == toColumn) {
                         // Check if the pawn moves one square forward
@@ -55,14 +59,14 @@ public class Pawn extends ChessPiece {
                     }
                     // Check if the pawn is capturing an opponent's piece diagonally
                     if (toLine == line + 1 && (toColumn == column + 1 || toColumn == column - 1)) {
-                        if (targetPiece != null && !targetPiece.getColor().equals(this.color)) {
+                        if (targetPiece != null && targetPiece.side != this.side) {
                             return true;
                         }
                     }
                 }
 
                 // Black pawns move down the board (line decreases)
-                if (this.color.equals("Black")) {
+                if (this.side == Position.BLACK) {
                     // Check if the pawn is moving straight forward (not capturing)
                     if (column == toColumn) {
                         // Check if the pawn moves one square forward
@@ -77,7 +81,7 @@ public class Pawn extends ChessPiece {
                     }
                     // Check if the pawn is capturing an opponent's piece diagonally
                     if (toLine == line - 1 && (toColumn == column + 1 || toColumn == column - 1)) {
-                        if (targetPiece != null && !targetPiece.getColor().equals(this.color)) {
+                        if (targetPiece != null && targetPiece.side != this.side) {
                             return true;
                         }
                     }
@@ -0,0 +1,182 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class Perft {
+
+    private Perft() {
+    }
+
+    // Count the leaf nodes of the legal move tree of the given depth
+    public static long perft(Position position, int depth) {
+        if (depth <= 0) return 1;
+        return perft(position, depth, new int[depth * MoveGenerator.MAX_MOVES], 0);
+    }
+
+    /*
+     Print the leaf count below every legal move of the root and return the total.
+     Comparing these lines against a trusted generator points straight at the broken move.
+    */
+    public static long divide(Position position, int depth, PrintStream out) {
+        if (depth <= 0) return 1;
+        int[] moves = new int[depth * MoveGenerator.MAX_MOVES];
+        int end = MoveGenerator.generateLegal(position, moves, 0);
+        long total = 0;
+        for (int i = 0; i < end; i++) {
+            position.makeMove(moves[i]);
+            long nodes = depth == 1 ? 1 : perft(position, depth - 1, moves, end);
+            position.unmakeMove();
+            out.println(Move.toString(moves[i]) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    // Moves of every ply are generated into the same buffer, each ply after the previous one
+    static long perft(Position position, int depth, int[] moves, int start) {
+        int end = MoveGenerator.generateLegal(position, moves, start);
+        if (depth == 1) return end - start; // the moves themselves are the leaves
+        long nodes = 0;
+        for (int i = start; i < end; i++) {
+            position.makeMove(moves[i]);
+            nodes += perft(position, depth - 1, moves, end);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /*
+     Count the same leaves as perft() on a ForkJoinPool. The first plies are split
+     into tasks, one per move, and every task works on its own copy of the position,
+     so no state is shared between worker threads.
+    */
+    public static long parallel(Position position, int depth, ForkJoinPool pool) {
+        if (depth <= 0) return 1;
+        int splitPlies = depth >= 5 ? 2 : 1; // deeper trees are split twice for better balance
+        return pool.invoke(new Node(new Position(position), depth, splitPlies));
+    }
+
+    // Same as divide(), with every root move counted in parallel
+    public static long parallelDivide(Position position, int depth, ForkJoinPool pool, PrintStream out) {
+        if (depth <= 0) return 1;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int end = MoveGenerator.generateLegal(position, moves, 0);
+        Node[] tasks = new Node[end];
+        for (int i = 0; i < end; i++) {
+            Position child = new Position(position);
+            child.makeMove(moves[i]);
+            tasks[i] = new Node(child, depth - 1, depth >= 5 ? 1 : 0); // the root is the first split
+            pool.execute(tasks[i]); // all root moves run at once, the lines are printed in move order
+        }
+        long total = 0;
+        for (int i = 0; i < end; i++) {
+            long nodes = tasks[i].join();
+            out.println(Move.toString(moves[i]) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    /*
+     Search every legal move of the root to the given depth on the pool, each with
+     its own Search and copy of the position, and print the moves from best to worst
+     with their scores for the player to move. Returns the number of root moves.
+    */
+    public static int analyse(Position position, int depth, ForkJoinPool pool, PrintStream out) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int end = MoveGenerator.generateLegal(position, moves, 0);
+        Analysis[] tasks = new Analysis[end];
+        for (int i = 0; i < end; i++) {
+            Position child = new Position(position);
+            child.makeMove(moves[i]);
+            tasks[i] = new Analysis(child, Math.max(1, depth - 1));
+            pool.execute(tasks[i]);
+        }
+        long[] lines = new long[end]; // score in the high bits so that sorting orders by it, the move's index below
+        for (int i = 0; i < end; i++) {
+            lines[i] = (long) tasks[i].join() << 32 | i; // the child's score is ours negated, so the best comes first
+        }
+        Arrays.sort(lines);
+        for (long line : lines) {
+            int i = (int) line;
+            out.println(Move.toString(moves[i]) + ": " + -tasks[i].join());
+        }
+        return end;
+    }
+
+    // One subtree of the parallel count; splits into child tasks while splitPlies is left
+    private static class Node extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Position position; // owned by this task only, tasks are never serialized
+        private final int depth;
+        private final int splitPlies;
+
+        Node(Position position, int depth, int splitPlies) {
+            this.position = position;
+            this.depth = depth;
+            this.splitPlies = splitPlies;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth == 0) return 1L;
+            if (splitPlies == 0 || depth == 1) {
+                return perft(position, depth, new int[depth * MoveGenerator.MAX_MOVES], 0);
+            }
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int end = MoveGenerator.generateLegal(position, moves, 0);
+            Node[] children = new Node[end];
+            for (int i = 0; i < end; i++) {
+                Position child = new Position(position);
+                child.makeMove(moves[i]);
+                children[i] = new Node(child, depth - 1, splitPlies - 1);
+            }
+            invokeAll(children);
+            long nodes = 0;
+            for (Node child : children) nodes += child.join();
+            return nodes;
+        }
+    }
+
+    // Search of one root move for analyse(); the score is from the point of view of the player after the move
+    private static class Analysis extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Position position; // owned by this task only, tasks are never serialized
+        private final int depth;
+
+        Analysis(Position position, int depth) {
+            this.position = position;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Integer compute() {
+            Search search = new Search();
+            search.bestMove(position, depth, 0, 0);
+            return search.score();
+        }
+    }
+
+    // Run perft (or divide) and print the node count with the speed in nodes per second
+    public static long run(Position position, int depth, boolean divide, PrintStream out) {
+        return run(position, depth, divide, null, out);
+    }
+
+    // Same as run(), spreading the work over the pool when it is not null
+    public static long run(Position position, int depth, boolean divide, ForkJoinPool pool, PrintStream out) {
+        long start = System.nanoTime();
+        long nodes;
+        if (pool == null) {
+            nodes = divide ? divide(position, depth, out) : perft(position, depth);
+        } else {
+            nodes = divide ? parallelDivide(position, depth, pool, out) : parallel(position, depth, pool);
+        }
+        long nanos = Math.max(1, System.nanoTime() - start);
+        out.println("Узлов: " + nodes + ", время: " + nanos / 1_000_000 + " мс, узлов в секунду: "
+                + (long) (nodes / (nanos / 1e9)));
+        return nodes;
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PgnGame {
+
+    // Longest game kept in memory; longer games are cut and reported as truncated
+    public static final int MAX_PLIES = 2048;
+
+    final Map<String, String> tags = new LinkedHashMap<>();
+    char[] text = new char[1024]; // SAN moves packed one after another
+    int[] moveEnd = new int[128]; // end of every move in text; a move starts where the previous one ends
+    int plies;
+    String result = "*";
+    boolean truncated;
+    String error; // why replay() stopped early, or null
+    long number; // 1-based position of the game in its file
+
+    // Return a tag value such as tag("White"), or null when the game has no such tag
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    // Number of moves in the move text
+    public int plies() {
+        return plies;
+    }
+
+    // Return one move of the move text, e.g. "Nf3"
+    public String san(int ply) {
+        int start = ply == 0 ? 0 : moveEnd[ply - 1];
+        return new String(text, start, moveEnd[ply] - start);
+    }
+
+    // Game termination marker: "1-0", "0-1", "1/2-1/2" or "*"
+    public String result() {
+        return result;
+    }
+
+    public boolean truncated() {
+        return truncated;
+    }
+
+    public long number() {
+        return number;
+    }
+
+    // Reason the last replay() stopped before the end of the move text, or null
+    public String error() {
+        return error;
+    }
+
+    /*
+     Replay the moves on the board (normally Main.buildBoard() or a position from the
+     FEN tag) through moveToPosition(), castling0() and castling7(). Returns the number
+     of moves played; when a move cannot be decoded or is rejected, error() tells why.
+    */
+    public int replay(ChessBoard board, San san) {
+        error = null;
+        for (int ply = 0; ply < plies; ply++) {
+            int start = ply == 0 ? 0 : moveEnd[ply - 1];
+            int move = san.decode(board, text, start, moveEnd[ply]);
+            if (move < 0) {
+                error = "ход " + (ply / 2 + 1) + ": не удалось разобрать '" + san(ply) + "'";
+                return ply;
+            }
+            if (!board.playMove(move)) {
+                error = "ход " + (ply / 2 + 1) + ": правила не разрешают '" + san(ply) + "'";
+                return ply;
+            }
+        }
+        return plies;
+    }
+
+    // Return the starting board: the FEN tag when the game has one, otherwise Main.buildBoard()
+    public ChessBoard startBoard() {
+        String fen = tags.get("FEN");
+        return fen == null ? Main.buildBoard() : Fen.toChessBoard(fen);
+    }
+
+    // Return an independent copy, e.g. to hand the game to another thread while the reader moves on
+    public PgnGame copy() {
+        PgnGame copy = new PgnGame();
+        copy.tags.putAll(tags);
+        copy.text = Arrays.copyOf(text, plies == 0 ? 0 : moveEnd[plies - 1]);
+        copy.moveEnd = Arrays.copyOf(moveEnd, plies);
+        copy.plies = plies;
+        copy.result = result;
+        copy.truncated = truncated;
+        copy.number = number;
+        return copy;
+    }
+
+    void clear() {
+        tags.clear();
+        plies = 0;
+        result = "*";
+        truncated = false;
+        error = null;
+    }
+
+    // Append one SAN move taken from the reader's token buffer
+    void addMove(char[] token, int length) {
+        if (plies == MAX_PLIES) {
+            truncated = true;
+            return;
+        }
+        int start = plies == 0 ? 0 : moveEnd[plies - 1];
+        if (start + length > text.length) text = Arrays.copyOf(text, Math.max(text.length * 2, start + length));
+        if (plies == moveEnd.length) moveEnd = Arrays.copyOf(moveEnd, moveEnd.length * 2);
+        System.arraycopy(token, 0, text, start, length);
+        moveEnd[plies++] = start + length;
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class PgnReader implements Closeable {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int MAX_TOKEN = 256; // longer tokens are cut, no SAN move comes close
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+    private final char[] token = new char[MAX_TOKEN];
+    private byte[] value = new byte[64]; // bytes of a tag name or value, decoded as UTF-8 once complete
+    private int valueLength;
+    private final PgnGame game = new PgnGame();
+    private int pushedBack = -1;
+    private long games;
+
+    /*
+     Stream games from a PGN file. The file is read in 64 KB chunks and only the
+     current game is held in memory, so files of any size can be read.
+    */
+    public PgnReader(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip(); // start empty
+    }
+
+    /*
+     Read the next game, or return null at the end of the input. The returned
+     game is reused by the following call; use PgnGame.copy() to keep it.
+    */
+    public PgnGame next() throws IOException {
+        game.clear();
+        boolean inMoves = false;
+        boolean any = false;
+        int c;
+        while ((c = read()) != -1) {
+            if (c <= ' ') continue;
+            if (c == '[') {
+                if (inMoves) { // a tag section after move text starts the next game
+                    pushedBack = c;
+                    break;
+                }
+                readTag();
+                any = true;
+            } else if (c == '{') {
+                skipUntil('}');
+            } else if (c == ';' || c == '%') {
+                skipUntil('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '$') {
+                while ((c = read()) >= '0' && c <= '9') ;
+                pushedBack = c;
+            } else {
+                int length = readToken(c);
+                any = true;
+                inMoves = true;
+                if (isResult(length)) {
+                    game.result = new String(token, 0, length);
+                    break;
+                }
+                // Skip the move number, "12." or "12...", also when glued to the move like "12.e4"
+                int start = 0;
+                while (start < length && Character.isDigit(token[start])) start++;
+                if (start < length && token[start] != '.') start = 0; // "0-0" is a castling, not a number
+                while (start < length && token[start] == '.') start++;
+                if (start < length) {
+                    if (start > 0) System.arraycopy(token, start, token, 0, length - start);
+                    game.addMove(token, length - start);
+                }
+            }
+        }
+        if (!any) return null;
+        game.number = ++games;
+        return game;
+    }
+
+    // Read [Name "Value"] after the opening bracket
+    private void readTag() throws IOException {
+        int c;
+        valueLength = 0;
+        while ((c = read()) != -1 && c > ' ' && c != ']') append(c);
+        String name = new String(value, 0, valueLength, StandardCharsets.UTF_8);
+        while (c != -1 && c != '"' && c != ']') c = read();
+        valueLength = 0;
+        if (c == '"') {
+            while ((c = read()) != -1 && c != '"') {
+                if (c == '\\') c = read();
+                if (c != -1) append(c);
+            }
+            while (c != -1 && c != ']') c = read();
+        }
+        // Player and event names are often not ASCII; '"' and '\\' never occur inside a UTF-8 sequence
+        game.tags.put(name, new String(value, 0, valueLength, StandardCharsets.UTF_8));
+    }
+
+    private void append(int b) {
+        if (valueLength == value.length) value = Arrays.copyOf(value, valueLength * 2);
+        value[valueLength++] = (byte) b;
+    }
+
+    // Read a move-text token that starts with c; the delimiter is pushed back
+    private int readToken(int c) throws IOException {
+        int length = 0;
+        while (c > ' ' && "{}()[];".indexOf(c) < 0) {
+            if (length < MAX_TOKEN) token[length++] = (char) c;
+            c = read();
+        }
+        pushedBack = c;
+        return length;
+    }
+
+    private boolean isResult(int length) {
+        return is("1-0", length) || is("0-1", length) || is("1/2-1/2", length) || is("*", length);
+    }
+
+    private boolean is(String text, int length) {
+        if (length != text.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (token[i] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void skipUntil(int end) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != end) ;
+    }
+
+    // Skip a variation in parentheses, with any nested variations and comments
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != -1) {
+            if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == '{') skipUntil('}');
+        }
+    }
+
+    // Next byte of the file, refilling the chunk buffer when it runs out; -1 at the end
+    private int read() throws IOException {
+        if (pushedBack >= 0) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            buffer.flip();
+            if (n < 0) return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
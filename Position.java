@@ -0,0 +1,413 @@
+import java.util.Arrays;
+
+public class Position {
+
+    // Side codes
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // Piece type codes, in the same order the symbols appear in SYMBOLS
+    public static final int PAWN = 0;
+    public static final int HORSE = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    // Squares whose line + column is odd; board[0][0] is a dark square
+    static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    // Marker for an empty square in the mailbox
+    public static final int EMPTY = -1;
+
+    // Castling rights, one bit per castling0()/castling7() and side
+    public static final int WHITE_CASTLING0 = 1;
+    public static final int WHITE_CASTLING7 = 2;
+    public static final int BLACK_CASTLING0 = 4;
+    public static final int BLACK_CASTLING7 = 8;
+
+    static final String SYMBOLS = "PHBRQK";
+    static final String[] COLORS = {"White", "Black"};
+
+    /*
+     Squares are numbered square = line * 8 + column, so bit 0 is board[0][0]
+     and bit 63 is board[7][7]. Pieces are indexed as side * 6 + type.
+    */
+    final long[] pieces = new long[12]; // one bitboard per piece kind
+    final long[] occupancy = new long[2]; // all pieces of each side
+    long occupied; // all pieces on the board
+    final byte[] squares = new byte[64]; // piece index on every square, or EMPTY
+    int sideToMove;
+    int castlingRights;
+    long hash; // Zobrist key, kept up to date by every change below
+    int score; // material and piece-square bonus, positive for White, kept up to date like the key
+    int halfmoveClock; // plies since the last capture or pawn move, for the fifty-move rule
+
+    // Undo stack for makeMove()/unmakeMove(), allocated by the first makeMove() and reused after that,
+    // so searching allocates nothing and positions that are only played forward never pay for it.
+    // It starts with room for MAX_PLY moves and doubles when a longer line is played.
+    public static final int MAX_PLY = 256;
+    int[] undoMove;
+    int[] undoCaptured;
+    int[] undoCastlingRights;
+    long[] undoHash;
+    int[] undoHalfmoveClock;
+    int ply;
+
+    // Constructor for an empty position with White to move
+    public Position() {
+        Arrays.fill(squares, (byte) EMPTY);
+    }
+
+    // Copy constructor: the copy shares nothing with the original and starts with an empty undo stack
+    public Position(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, occupancy.length);
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        occupied = other.occupied;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        hash = other.hash;
+        score = other.score;
+        halfmoveClock = other.halfmoveClock;
+    }
+
+    // Build a position from the object grid of a ChessBoard
+    public static Position of(ChessBoard chessBoard) {
+        Position position = new Position();
+        for (int line = 0; line < 8; line++) {
+            for (int column = 0; column < 8; column++) {
+                ChessPiece piece = chessBoard.board[line][column];
+                if (piece != null) {
+                    position.put(square(line, column), piece.index);
+                }
+            }
+        }
+        position.sideToMove = chessBoard.nowSide;
+        position.castlingRights = position.possibleRights(chessBoard.castlingRights);
+        position.hash = Zobrist.hash(position);
+        position.halfmoveClock = chessBoard.halfmoveClock;
+        return position;
+    }
+
+    // Build a new ChessBoard holding the same pieces, side to move and castling state
+    public ChessBoard toChessBoard() {
+        ChessBoard chessBoard = new ChessBoard(COLORS[sideToMove]);
+        copyTo(chessBoard.board);
+        chessBoard.castlingRights = castlingRights;
+        chessBoard.halfmoveClock = halfmoveClock;
+        return chessBoard;
+    }
+
+    // Fill an 8x8 object grid with the shared pieces of this position
+    public void copyTo(ChessPiece[][] board) {
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = squares[sq];
+            board[line(sq)][column(sq)] = piece == EMPTY ? null : ChessPiece.of(piece);
+        }
+    }
+
+    // Place a piece on an empty square
+    void put(int sq, int piece) {
+        long bit = 1L << sq;
+        pieces[piece] |= bit;
+        occupancy[sideOf(piece)] |= bit;
+        occupied |= bit;
+        squares[sq] = (byte) piece;
+        hash ^= Zobrist.PIECES[piece][sq];
+        score += Evaluator.PIECE_SQUARE[piece][sq];
+    }
+
+    // Remove the piece standing on a square
+    void remove(int sq) {
+        int piece = squares[sq];
+        long bit = 1L << sq;
+        pieces[piece] &= ~bit;
+        occupancy[sideOf(piece)] &= ~bit;
+        occupied &= ~bit;
+        squares[sq] = (byte) EMPTY;
+        hash ^= Zobrist.PIECES[piece][sq];
+        score -= Evaluator.PIECE_SQUARE[piece][sq];
+    }
+
+    /*
+     Apply a move produced by MoveGenerator. The move is trusted to follow the
+     piece rules; castling moves also relocate the rook like castling0()/castling7().
+    */
+    public void play(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean irreversible = !Move.isCastling(move) && (squares[to] != EMPTY || typeOf(squares[from]) == PAWN);
+        halfmoveClock = irreversible ? 0 : halfmoveClock + 1;
+        if (Move.isCastling(move)) {
+            int rookFrom = Move.flag(move) == Move.CASTLING0 ? from - 4 : from + 3;
+            int rookTo = Move.flag(move) == Move.CASTLING0 ? from - 1 : from + 1;
+            int rook = squares[rookFrom];
+            remove(rookFrom);
+            put(rookTo, rook);
+        } else if (squares[to] != EMPTY) {
+            remove(to); // capture
+        }
+        int piece = squares[from];
+        remove(from);
+        put(to, piece);
+
+        // Moving a king or rook off its home square, or capturing on it, ends that castling
+        hash ^= Zobrist.CASTLING[castlingRights];
+        castlingRights &= ~(rightsNeeding(from) | rightsNeeding(to));
+        hash ^= Zobrist.CASTLING[castlingRights] ^ Zobrist.BLACK_TO_MOVE;
+        sideToMove ^= 1;
+    }
+
+    // Play a move and remember what is needed to take it back with unmakeMove()
+    public void makeMove(int move) {
+        if (undoMove == null) {
+            undoMove = new int[MAX_PLY];
+            undoCaptured = new int[MAX_PLY];
+            undoCastlingRights = new int[MAX_PLY];
+            undoHash = new long[MAX_PLY];
+            undoHalfmoveClock = new int[MAX_PLY];
+        } else if (ply == undoMove.length) {
+            int size = ply * 2;
+            undoMove = Arrays.copyOf(undoMove, size);
+            undoCaptured = Arrays.copyOf(undoCaptured, size);
+            undoCastlingRights = Arrays.copyOf(undoCastlingRights, size);
+            undoHash = Arrays.copyOf(undoHash, size);
+            undoHalfmoveClock = Arrays.copyOf(undoHalfmoveClock, size);
+        }
+        undoMove[ply] = move;
+        undoCaptured[ply] = Move.isCastling(move) ? EMPTY : squares[Move.to(move)];
+        undoCastlingRights[ply] = castlingRights;
+        undoHash[ply] = hash;
+        undoHalfmoveClock[ply] = halfmoveClock;
+        ply++;
+        play(move);
+    }
+
+    // Take back the last move played with makeMove()
+    public void unmakeMove() {
+        ply--;
+        undo(undoMove[ply], undoCaptured[ply], undoCastlingRights[ply]);
+        hash = undoHash[ply];
+        halfmoveClock = undoHalfmoveClock[ply];
+    }
+
+    // Number of moves currently on the undo stack
+    public int ply() {
+        return ply;
+    }
+
+    // Key of the position the given number of moves back on the undo stack, at most ply()
+    public long hashBefore(int plies) {
+        return undoHash[ply - plies];
+    }
+
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /*
+     Check if neither side can ever mate: nothing but the kings and at most one
+     horse or bishop, or nothing but bishops that all stand on squares of one colour.
+    */
+    public boolean isInsufficientMaterial() {
+        if ((bothSides(PAWN) | bothSides(ROOK) | bothSides(QUEEN)) != 0) return false;
+        long horses = bothSides(HORSE);
+        long bishops = bothSides(BISHOP);
+        if (Long.bitCount(horses | bishops) <= 1) return true;
+        return horses == 0 && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0);
+    }
+
+    private long bothSides(int type) {
+        return pieces[piece(WHITE, type)] | pieces[piece(BLACK, type)];
+    }
+
+    // Reverse play(move) given the captured piece (or EMPTY) and the castling rights before the move
+    void undo(int move, int captured, int castlingRights) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = squares[to];
+        remove(to);
+        put(from, piece);
+        if (Move.isCastling(move)) {
+            int rookFrom = Move.flag(move) == Move.CASTLING0 ? from - 4 : from + 3;
+            int rookTo = Move.flag(move) == Move.CASTLING0 ? from - 1 : from + 1;
+            int rook = squares[rookTo];
+            remove(rookTo);
+            put(rookFrom, rook);
+        } else if (captured != EMPTY) {
+            put(to, captured);
+        }
+        hash ^= Zobrist.CASTLING[this.castlingRights] ^ Zobrist.CASTLING[castlingRights] ^ Zobrist.BLACK_TO_MOVE;
+        this.castlingRights = castlingRights;
+        sideToMove ^= 1;
+    }
+
+    // Check if any piece of bySide attacks sq, counting only pieces in alive and blockers in occupied
+    boolean isAttacked(int sq, int bySide, long occupied, long alive) {
+        int base = bySide * 6;
+        long queens = pieces[base + QUEEN];
+        return (Attacks.horse(sq) & pieces[base + HORSE] & alive) != 0
+                || (Attacks.king(sq) & pieces[base + KING] & alive) != 0
+                || (Attacks.pawn(bySide ^ 1, sq) & pieces[base + PAWN] & alive) != 0
+                || (Attacks.rook(sq, occupied) & (pieces[base + ROOK] | queens) & alive) != 0
+                || (Attacks.bishop(sq, occupied) & (pieces[base + BISHOP] | queens) & alive) != 0;
+    }
+
+    /*
+     Return every piece of bySide attacking sq, found by casting the attacks of each
+     piece kind outward from sq itself, so the cost does not grow with the number of pieces
+    */
+    public long attackersTo(int sq, int bySide, long occupied) {
+        int base = bySide * 6;
+        long queens = pieces[base + QUEEN];
+        return (Attacks.horse(sq) & pieces[base + HORSE])
+                | (Attacks.king(sq) & pieces[base + KING])
+                | (Attacks.pawn(bySide ^ 1, sq) & pieces[base + PAWN])
+                | (Attacks.rook(sq, occupied) & (pieces[base + ROOK] | queens))
+                | (Attacks.bishop(sq, occupied) & (pieces[base + BISHOP] | queens));
+    }
+
+    // Check if any piece of bySide attacks sq in the current position
+    public boolean isAttacked(int sq, int bySide) {
+        return isAttacked(sq, bySide, occupied, -1L);
+    }
+
+    // Check if the king of the given side is attacked; a side without a king is never in check
+    public boolean isInCheck(int side) {
+        long king = pieces[piece(side, KING)];
+        return king != 0 && isAttacked(Long.numberOfTrailingZeros(king), side ^ 1);
+    }
+
+    /*
+     Check if any piece of bySide could move to sq under the piece rules, which is
+     what King.isUnderAttack() tests before castling. Unlike isAttacked(), pawns
+     reach an empty square only by pushing forward and an occupied one only by capturing.
+    */
+    public boolean canBeReached(int sq, int bySide) {
+        long bit = 1L << sq;
+        if ((occupancy[bySide] & bit) != 0) return false; // own pieces are never a target
+        long pawns = pieces[piece(bySide, PAWN)];
+        if ((occupied & bit) == 0) {
+            int step = bySide == WHITE ? -8 : 8; // from the target back towards the pawn
+            int startLine = bySide == WHITE ? 3 : 4; // target of a two-square push
+            int behind = sq + step;
+            if (behind >= 0 && behind < 64 && (pawns & (1L << behind)) != 0) return true;
+            if (line(sq) == startLine && (occupied & (1L << behind)) == 0 && (pawns & (1L << (behind + step))) != 0) {
+                return true;
+            }
+            pawns = 0; // diagonal pawn moves need a piece to capture
+        }
+        return isAttacked(sq, bySide, occupied, ~pieces[piece(bySide, PAWN)] | pawns);
+    }
+
+    // Remove every piece and reset to White to move without castling rights
+    public void clear() {
+        Arrays.fill(pieces, 0);
+        Arrays.fill(occupancy, 0);
+        Arrays.fill(squares, (byte) EMPTY);
+        occupied = 0;
+        sideToMove = WHITE;
+        castlingRights = 0;
+        hash = 0;
+        score = 0;
+        halfmoveClock = 0;
+        ply = 0;
+    }
+
+    // Keep only the castling rights whose king and rook are still on their home squares
+    int possibleRights(int rights) {
+        if (!isAt(4, WHITE, KING)) rights &= ~(WHITE_CASTLING0 | WHITE_CASTLING7);
+        if (!isAt(0, WHITE, ROOK)) rights &= ~WHITE_CASTLING0;
+        if (!isAt(7, WHITE, ROOK)) rights &= ~WHITE_CASTLING7;
+        if (!isAt(60, BLACK, KING)) rights &= ~(BLACK_CASTLING0 | BLACK_CASTLING7);
+        if (!isAt(56, BLACK, ROOK)) rights &= ~BLACK_CASTLING0;
+        if (!isAt(63, BLACK, ROOK)) rights &= ~BLACK_CASTLING7;
+        return rights;
+    }
+
+    // Check if the square holds a piece of the given side and type
+    boolean isAt(int sq, int side, int type) {
+        return squares[sq] == piece(side, type);
+    }
+
+    // Return the piece index on a square, or EMPTY
+    public int pieceAt(int sq) {
+        return squares[sq];
+    }
+
+    // Return the bitboard of one side's pieces of the given type
+    public long bitboard(int side, int type) {
+        return pieces[piece(side, type)];
+    }
+
+    // Return the bitboard of all pieces of one side
+    public long occupancy(int side) {
+        return occupancy[side];
+    }
+
+    // Return the bitboard of every occupied square
+    public long occupied() {
+        return occupied;
+    }
+
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    // Return the Zobrist key of the pieces, side to move and castling rights
+    public long hash() {
+        return hash;
+    }
+
+    // Material and piece-square part of Evaluator's score, positive for White
+    public int pieceSquareScore() {
+        return score;
+    }
+
+    public static int square(int line, int column) {
+        return line * 8 + column;
+    }
+
+    public static int line(int sq) {
+        return sq >>> 3;
+    }
+
+    public static int column(int sq) {
+        return sq & 7;
+    }
+
+    public static int piece(int side, int type) {
+        return side * 6 + type;
+    }
+
+    public static int sideOf(int piece) {
+        return piece >= 6 ? BLACK : WHITE;
+    }
+
+    public static int typeOf(int piece) {
+        return piece >= 6 ? piece - 6 : piece;
+    }
+
+    // Convert a "White"/"Black" color string to a side code
+    static int side(String color) {
+        return color.equals("White") ? WHITE : BLACK;
+    }
+
+    // Castling rights that depend on the king or rook standing on the given home square
+    static int rightsNeeding(int sq) {
+        switch (sq) {
+            case 0: return WHITE_CASTLING0;
+            case 4: return WHITE_CASTLING0 | WHITE_CASTLING7;
+            case 7: return WHITE_CASTLING7;
+            case 56: return BLACK_CASTLING0;
+            case 60: return BLACK_CASTLING0 | BLACK_CASTLING7;
+            case 63: return BLACK_CASTLING7;
+            default: return 0;
+        }
+    }
+}
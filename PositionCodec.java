@@ -0,0 +1,96 @@
+import java.nio.ByteBuffer;
+
+public class PositionCodec {
+
+    /*
+     Fixed-width 32-byte record of a position:
+       bytes 0-7    occupied squares as a bitboard
+       bytes 8-23   one 4-bit piece index per occupied square, in square order
+                    (pawns never promote, so there are at most 32 pieces)
+       byte 24      bit 0 side to move, bits 1-4 castling rights
+       bytes 25-31  reserved, written as zero
+    */
+    public static final int RECORD_SIZE = 32;
+
+    private PositionCodec() {
+    }
+
+    public static final int MAX_PIECES = 32; // pieces a record has room for
+
+    /*
+     Write the position as one record at the buffer's current position. Positions with
+     more than 32 pieces, which FEN can describe but a game cannot reach, have no record;
+     they are refused with IllegalArgumentException before anything is written.
+    */
+    public static void encode(Position position, ByteBuffer out) {
+        if (Long.bitCount(position.occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("No record for " + Long.bitCount(position.occupied) + " pieces");
+        }
+        out.putLong(position.occupied);
+        long low = 0;
+        long high = 0;
+        int n = 0;
+        for (long squares = position.occupied; squares != 0; squares &= squares - 1, n++) {
+            long piece = position.squares[Long.numberOfTrailingZeros(squares)];
+            if (n < 16) low |= piece << (n * 4);
+            else high |= piece << ((n - 16) * 4);
+        }
+        out.putLong(low);
+        out.putLong(high);
+        out.put((byte) (position.sideToMove | (position.castlingRights << 1)));
+        for (int i = 25; i < RECORD_SIZE; i++) out.put((byte) 0);
+    }
+
+    // Read one record from the buffer's current position into an existing position
+    public static void decode(ByteBuffer in, Position position) {
+        decode(in, in.position(), position);
+        in.position(in.position() + RECORD_SIZE);
+    }
+
+    /*
+     Read the record starting at an absolute offset; the buffer's position is left alone,
+     so several threads can read from one shared buffer. A record that is cut short,
+     has more than 32 pieces or a piece index no piece has is refused with
+     IllegalArgumentException, leaving the position cleared.
+    */
+    public static void decode(ByteBuffer in, int offset, Position position) {
+        position.clear();
+        if (offset < 0 || offset > in.limit() - RECORD_SIZE) {
+            throw new IllegalArgumentException("No whole record at " + offset + " of " + in.limit() + " bytes");
+        }
+        long occupied = in.getLong(offset);
+        long low = in.getLong(offset + 8);
+        long high = in.getLong(offset + 16);
+        int flags = in.get(offset + 24);
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Corrupt record at " + offset + ": " + Long.bitCount(occupied) + " pieces");
+        }
+        int n = 0;
+        for (long squares = occupied; squares != 0; squares &= squares - 1, n++) {
+            long nibbles = n < 16 ? low >>> (n * 4) : high >>> ((n - 16) * 4);
+            int piece = (int) (nibbles & 15);
+            if (piece > Position.piece(Position.BLACK, Position.KING)) { // 12 to 15 are no piece
+                position.clear();
+                throw new IllegalArgumentException("Corrupt record at " + offset + ": piece " + piece);
+            }
+            position.put(Long.numberOfTrailingZeros(squares), piece);
+        }
+        position.sideToMove = flags & 1;
+        position.castlingRights = (flags >>> 1) & 15;
+        position.hash = Zobrist.hash(position);
+    }
+
+    // Encode a ChessBoard into a new 32-byte array
+    public static byte[] encode(ChessBoard chessBoard) {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        encode(chessBoard.position(), buffer);
+        return buffer.array();
+    }
+
+    // Decode a 32-byte record into a new ChessBoard
+    public static ChessBoard decode(byte[] record) {
+        Position position = new Position();
+        decode(ByteBuffer.wrap(record), position);
+        return position.toChessBoard();
+    }
+}
@@ -0,0 +1,95 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PositionStore implements Closeable {
+
+    // Files are mapped in segments because a single mapping cannot exceed 2 GB
+    private static final long SEGMENT_SIZE = (1L << 30) / PositionCodec.RECORD_SIZE * PositionCodec.RECORD_SIZE;
+
+    private final long segmentSize;
+    private final FileChannel channel;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(PositionCodec.RECORD_SIZE * 4096);
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private volatile long flushedRecords;
+
+    /*
+     Open (or create) a store file. Records are appended by one writer thread and can
+     be read concurrently by any number of threads through the memory-mapped file.
+    */
+    public PositionStore(Path file) throws IOException {
+        this(file, SEGMENT_SIZE / PositionCodec.RECORD_SIZE);
+    }
+
+    // Constructor with segments of the given number of records, small ones let tests cross segments
+    PositionStore(Path file, long segmentRecords) throws IOException {
+        segmentSize = segmentRecords * PositionCodec.RECORD_SIZE;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        flushedRecords = channel.size() / PositionCodec.RECORD_SIZE;
+        channel.position(flushedRecords * PositionCodec.RECORD_SIZE); // drop a torn record at the end
+    }
+
+    // Number of records in the store, including records still waiting in the write buffer
+    public long size() {
+        return flushedRecords + writeBuffer.position() / PositionCodec.RECORD_SIZE;
+    }
+
+    // Append a position and return its record index
+    public synchronized long append(Position position) throws IOException {
+        if (writeBuffer.remaining() < PositionCodec.RECORD_SIZE) flush();
+        long index = size();
+        PositionCodec.encode(position, writeBuffer);
+        return index;
+    }
+
+    // Write buffered records to the file
+    public synchronized void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) channel.write(writeBuffer);
+        writeBuffer.clear();
+        flushedRecords = channel.size() / PositionCodec.RECORD_SIZE;
+    }
+
+    // Read the record at the index into an existing position
+    public void read(long index, Position position) throws IOException {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("No record " + index);
+        if (index >= flushedRecords) flush();
+        long offset = index * PositionCodec.RECORD_SIZE;
+        int segment = (int) (offset / segmentSize);
+        int inSegment = (int) (offset % segmentSize);
+        PositionCodec.decode(mapped(segment, inSegment + PositionCodec.RECORD_SIZE), inSegment, position);
+    }
+
+    // Return a mapping of the segment covering at least the first 'needed' bytes, remapping a grown tail
+    private ByteBuffer mapped(int segment, int needed) throws IOException {
+        MappedByteBuffer[] current = segments;
+        if (segment < current.length && current[segment] != null && current[segment].capacity() >= needed) {
+            return current[segment];
+        }
+        synchronized (this) {
+            current = segments;
+            if (segment >= current.length) {
+                MappedByteBuffer[] grown = new MappedByteBuffer[segment + 1];
+                System.arraycopy(current, 0, grown, 0, current.length);
+                current = grown;
+            }
+            if (current[segment] == null || current[segment].capacity() < needed) {
+                long start = segment * segmentSize;
+                long length = Math.min(segmentSize, flushedRecords * PositionCodec.RECORD_SIZE - start);
+                current[segment] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            segments = current;
+            return current[segment];
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
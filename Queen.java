@@ -1,8 +1,12 @@
 public class Queen extends ChessPiece {
 
+    // Shared immutable instances, use these instead of creating new pieces
+    public static final Queen WHITE = new Queen("White");
+    public static final Queen BLACK = new Queen("Black");
+
     // Constructor to initialize the queen with a color
     public Queen(String color) {
-        super(color); // Call the parent constructor to set the color
+        super(color, Position.QUEEN); // Call the parent constructor to set the color
     }
 
     // Return the color of the queen
@@ -21,7 +25,7 @@ public class Queen extends ChessPiece {
 
     // Check if the queen can move to the provided position
     @Override
-    public boolean canMoveToPosition(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
+    protected boolean canMove(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
         // Ensure the provided position and target position are within board boundaries
         if (chessBoard.checkPos(line) && chessBoard.checkPos(column) &&
                 chessBoard.checkPos(toLine) && chessBoard.checkPos(toColumn)) {
@@ -32,29 +36,14 @@ public class Queen extends ChessPiece {
                 ChessPiece targetPiece = chessBoard.board[toLine][toColumn];
 
                 // Check if the target position is empty or contains an opponent's piece
-                if (targetPiece == null || !targetPiece.getColor().equals(this.color)) {
+                if (targetPiece == null || targetPiece.side != this.side) {
 
                     // Check if the move is along a straight line (either same line or same column)
                     if (line == toLine || column == toColumn) {
                         // Check if there are no pieces blocking the straight path
-                        if (line == toLine) { // Moving horizontally
-                            int minColumn = Math.min(column, toColumn);
-                            int maxColumn = Math.max(column, toColumn);
-                            for (int c = minColumn + 1; c < maxColumn; c++) {
-                                if (chessBoard.board[line][c] != null) {
-                                    // There is a piece blocking the path
-                                    return false;
-                                }
-                            }
-                        } else { // Moving vertically
-                            int minLine = Math.min(line, toLine);
-                            int maxLine = Math.max(line, toLine);
-                            for (int l = minLine + 1; l < maxLine; l++) {
-                                if (chessBoard.board[l][column] != null) {
-                                    // There is a piece blocking the path
-                                    return false;
-                                }
-                            }
+                        if (!chessBoard.isPathClear(line, column, toLine, toColumn)) {
+                            // There is a piece blocking the path
+                            return false;
                         }
 
                         // If no pieces block the straight path, the move is valid
@@ -64,19 +53,9 @@ public class Queen extends ChessPiece {
                     // Check if the move is diagonal (same absolute difference between line and toLine, column and toColumn)
                     if (Math.abs(toLine - line) == Math.abs(toColumn - column)) {
                         // Check if there are no pieces blocking the diagonal path
-                        int deltaLine = (toLine - line) > 0 ? 1 : -1; // Determine the direction of movement along the rows
-                        int deltaColumn = (toColumn - column) > 0 ? 1 : -1; // Determine the direction of movement along the columns
-
-                        int checkLine = line + deltaLine; // Start checking from the next cell in the diagonal path
-                        int checkColumn = column + deltaColumn;
-
-                        while (checkLine != toLine && checkColumn != toColumn) {
-                            if (chessBoard.board[checkLine][checkColumn] != null) {
-                                // There is a piece blocking the diagonal path
-                                return false;
-                            }
-                            checkLine += deltaLine;
-                            checkColumn += deltaColumn;
+                        if (!chessBoard.isPathClear(line, column, toLine, toColumn)) {
+                            // There is a piece blocking the diagonal path
+                            return false;
                         }
 
                         // If no pieces block the diagonal path, the move is valid
@@ -1,8 +1,12 @@
 public class Rook extends ChessPiece {
 
+    // Shared immutable instances, use these instead of creating new pieces
+    public static final Rook WHITE = new Rook("White");
+    public static final Rook BLACK = new Rook("Black");
+
     // Constructor to initialize the rook with a color
     public Rook(String color) {
-        super(color); // Call the parent constructor to set the color
+        super(color, Position.ROOK); // Call the parent constructor to set the color
     }
 
     // Return the color of the rook
@@ -21,7 +25,7 @@ public class Rook extends ChessPiece {
 
     // Check if the rook can move to the provided position
     @Override
-    public boolean canMoveToPosition(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
+    protected boolean canMove(ChessBoard chessBoard, int line, int column, int toLine, int toColumn) {
         // Ensure the provided position and target position are within board boundaries
         if (chessBoard.checkPos(line) && chessBoard.checkPos(column) &&
                 chessBoard.checkPos(toLine) && chessBoard.checkPos(toColumn)) {
@@ -32,30 +36,15 @@ public class Rook extends ChessPiece {
                 ChessPiece targetPiece = chessBoard.board[toLine][toColumn];
 
                 // Check if the target position is empty or contains an opponent's piece
-                if (targetPiece == null || !targetPiece.getColor().equals(this.color)) {
+                if (targetPiece == null || targetPiece.side != this.side) {
 
                     // Check if the move is along a straight line (either same line or same column)
                     if (line == toLine || column == toColumn) {
 
                         // Check if there are no pieces blocking the straight path
-                        if (line == toLine) { // Moving horizontally
-                            int minColumn = Math.min(column, toColumn);
-                            int maxColumn = Math.max(column, toColumn);
-                            for (int c = minColumn + 1; c < maxColumn; c++) {
-                                if (chessBoard.board[line][c] != null) {
-                                    // There is a piece blocking the path
-                                    return false;
-                                }
-                            }
-                        } else { // Moving vertically
-                            int minLine = Math.min(line, toLine);
-                            int maxLine = Math.max(line, toLine);
-                            for (int l = minLine + 1; l < maxLine; l++) {
-                                if (chessBoard.board[l][column] != null) {
-                                    // There is a piece blocking the path
-                                    return false;
-                                }
-                            }
+                        if (!chessBoard.isPathClear(line, column, toLine, toColumn)) {
+                            // There is a piece blocking the path
+                            return false;
                         }
 
                         // If no pieces block the straight path, the move is valid
@@ -0,0 +1,91 @@
+public class San {
+
+    // SAN letters for the piece types; pawns have none, horses are written N
+    private static final String LETTERS = "PNBRQK";
+
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES]; // reused for every decode
+
+    /*
+     Decode a move written in standard algebraic notation (e4, Nxf3, R1d2, exd5, O-O, O-O-O)
+     against the legal moves of the board. Returns the packed move, or -1 when the text
+     is not a move, matches no legal move, or is ambiguous. Check, mate and annotation
+     marks are ignored. Promotions return -1, the piece rules have no promotion.
+    */
+    public int decode(ChessBoard board, char[] text, int start, int end) {
+        // Drop trailing check, mate and annotation marks
+        while (end > start && "+#!?".indexOf(text[end - 1]) >= 0) end--;
+        if (end - start < 2) return -1;
+
+        int count = board.generateMoves(moves);
+        if (isCastling(text, start, end)) {
+            int flag = end - start >= 5 ? Move.CASTLING0 : Move.CASTLING7; // O-O-O is the long castling
+            for (int i = 0; i < count; i++) {
+                if (Move.flag(moves[i]) == flag) return moves[i];
+            }
+            return -1;
+        }
+
+        int type = Position.PAWN;
+        int i = start;
+        int letter = LETTERS.indexOf(text[i]);
+        if (letter > 0 || text[i] == 'H') {
+            type = letter > 0 ? letter : Position.HORSE;
+            i++;
+        }
+
+        // The last two characters are the target square; a promotion suffix such as =Q is not supported
+        if (text[end - 2] == '=' || !isFile(text[end - 2]) || !isRank(text[end - 1])) return -1;
+        int to = Position.square(text[end - 1] - '1', text[end - 2] - 'a');
+
+        // Anything between the piece and the target is a capture mark or the start file/rank
+        int fromColumn = -1;
+        int fromLine = -1;
+        for (; i < end - 2; i++) {
+            char c = text[i];
+            if (isFile(c)) fromColumn = c - 'a';
+            else if (isRank(c)) fromLine = c - '1';
+            else if (c != 'x' && c != ':' && c != '-') return -1;
+        }
+
+        int found = -1;
+        Position position = board.position();
+        for (int m = 0; m < count; m++) {
+            int move = moves[m];
+            int from = Move.from(move);
+            if (Move.to(move) != to || Move.isCastling(move)) continue;
+            if (Position.typeOf(position.pieceAt(from)) != type) continue;
+            if (fromColumn >= 0 && Position.column(from) != fromColumn) continue;
+            if (fromLine >= 0 && Position.line(from) != fromLine) continue;
+            if (found >= 0) return -1; // ambiguous
+            found = move;
+        }
+        return found;
+    }
+
+    // Decode a move written in standard algebraic notation, see decode(ChessBoard, char[], int, int)
+    public int decode(ChessBoard board, CharSequence san) {
+        char[] text = san.toString().toCharArray();
+        return decode(board, text, 0, text.length);
+    }
+
+    // Decode and play a move through moveToPosition(), castling0() or castling7()
+    public boolean apply(ChessBoard board, CharSequence san) {
+        int move = decode(board, san);
+        return move >= 0 && board.playMove(move);
+    }
+
+    private static boolean isCastling(char[] text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (text[i] != 'O' && text[i] != '0' && text[i] != '-') return false;
+        }
+        return true;
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+}
@@ -0,0 +1,352 @@
+import java.util.Arrays;
+
+public class Search implements Engine {
+
+    public static final int INFINITY = 32000;
+    public static final int MATE = 31000; // score of being mated now; mate in n plies scores MATE - n
+    public static final int MAX_DEPTH = 64;
+    static final int MATE_BOUND = MATE - Position.MAX_PLY; // scores beyond this are mate scores
+
+    // Move ordering: hash move, then captures by MVV-LVA, then killers, then quiet moves by history
+    private static final int HASH_MOVE = 3_000_000;
+    private static final int CAPTURE = 2_000_000;
+    private static final int FIRST_KILLER = 1_500_000;
+    private static final int SECOND_KILLER = 1_400_000;
+    private static final int HISTORY_LIMIT = 1_000_000; // history scores are halved before reaching the killers
+    private static final int LOSING_CAPTURE = -2_000_000; // captures SEE says lose material go after the quiet moves
+
+    private static final int DELTA_MARGIN = 200; // a capture must come this close to alpha to be searched in quiesce()
+
+    private static final int CHECK_EVERY = 1024; // nodes between two looks at the clock
+
+    private static final int FIFTY_MOVES = 100; // plies without a capture or pawn move that draw the game
+
+    private final TranspositionTable table; // may be null
+    private final int[] moves = new int[(MAX_DEPTH + 1) * MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[moves.length];
+    private final int[][] killers = new int[MAX_DEPTH + 1][2];
+    private final int[][] history = new int[12][64];
+    private final int[] exchange = new int[See.MAX_EXCHANGES]; // gains of the exchange See is looking at
+    private final long[] gameKeys = new long[GameHistory.CAPACITY]; // keys of the game before the root, [0] is the root
+    private int gameKeyCount;
+
+    private Position position;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean stop;
+    private int bestMove;
+    private int bestScore;
+    private int completedDepth;
+    private int rootMove; // best root move of the iteration in progress
+
+    // Constructor for a search without a transposition table
+    public Search() {
+        this(null);
+    }
+
+    // Constructor for a search that shares positions it has seen through the given table
+    public Search(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /*
+     Find the best move for the player to move on the board, which is left unchanged.
+     The search deepens one ply at a time until maxDepth is done, millis milliseconds
+     have passed or maxNodes positions have been visited (0 means no limit for the last two),
+     and returns the best move of the deepest finished iteration, or 0 if there is no legal move.
+    */
+    @Override
+    public int bestMove(ChessBoard board, int maxDepth, long millis, long maxNodes) {
+        return bestMove(board.position(), board.history(), maxDepth, millis, maxNodes);
+    }
+
+    // Same as bestMove(ChessBoard, ...) on a copy of the position, knowing nothing of the moves before it
+    public int bestMove(Position root, int maxDepth, long millis, long maxNodes) {
+        return bestMove(root, null, maxDepth, millis, maxNodes);
+    }
+
+    // Same as bestMove(ChessBoard, ...) with the positions of the game so far, so repeating them counts as a draw
+    public int bestMove(Position root, GameHistory game, int maxDepth, long millis, long maxNodes) {
+        stop = false;
+        if (table != null) table.newSearch();
+        return run(root, game, 1, maxDepth, millis, maxNodes);
+    }
+
+    /*
+     Iterative deepening from firstDepth up. Unlike bestMove() this neither clears a
+     previous stop() nor starts a new table generation, so several searches can share
+     one table and be stopped together before some of them have even started.
+     The game's keys are copied, so threads may share one GameHistory.
+    */
+    int run(Position root, GameHistory game, int firstDepth, int maxDepth, long millis, long maxNodes) {
+        long start = System.nanoTime();
+        position = new Position(root);
+        gameKeyCount = 1;
+        gameKeys[0] = root.hash();
+        if (game != null && game.key(0) == root.hash()) {
+            gameKeyCount = Math.min(game.size(), root.halfmoveClock() + 1);
+            for (int i = 1; i < gameKeyCount; i++) gameKeys[i] = game.key(i);
+        }
+        nodes = 0;
+        nodeLimit = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+        deadline = millis > 0 ? start + millis * 1_000_000 : Long.MAX_VALUE;
+        bestMove = 0;
+        bestScore = 0;
+        completedDepth = 0;
+        rootMove = 0;
+        for (int[] killer : killers) {
+            killer[0] = killer[1] = 0;
+        }
+        for (int[] row : history) {
+            Arrays.fill(row, 0);
+        }
+
+        for (int depth = firstDepth; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+            rootMove = 0;
+            int score = search(depth, -INFINITY, INFINITY, 0, 0);
+            if (stop) break;
+            bestMove = rootMove;
+            bestScore = score;
+            completedDepth = depth;
+            if (rootMove == 0 || Math.abs(score) > MATE_BOUND) break; // no moves, or the game is decided
+            // The next iteration takes longer than all before it; don't start what can't finish
+            if (millis > 0 && System.nanoTime() - start > (deadline - start) / 2) break;
+        }
+        // Out of time even for depth 1: any legal move is better than none
+        if (bestMove == 0 && rootMove != 0) bestMove = rootMove;
+        return bestMove;
+    }
+
+    // Ask a running search to return as soon as possible; safe to call from another thread
+    public void stop() {
+        stop = true;
+    }
+
+    // Let run() search again after stop()
+    void reset() {
+        stop = false;
+    }
+
+    // Best move of the last bestMove() or run()
+    int move() {
+        return bestMove;
+    }
+
+    // Score of the best move from the point of view of the player to move
+    @Override
+    public int score() {
+        return bestScore;
+    }
+
+    // Depth of the last finished iteration
+    @Override
+    public int depth() {
+        return completedDepth;
+    }
+
+    @Override
+    public long nodes() {
+        return nodes;
+    }
+
+    // Negamax with alpha-beta pruning; moves of every ply go into the shared buffer after the previous ply
+    private int search(int depth, int alpha, int beta, int ply, int start) {
+        if (depth <= 0 || ply >= MAX_DEPTH) return quiesce(alpha, beta, ply, start);
+        if ((++nodes & (CHECK_EVERY - 1)) == 0) checkLimits();
+        if (stop) return 0;
+        if (ply > 0 && isDraw()) return 0;
+
+        int hashMove = ply == 0 ? bestMove : 0;
+        if (table != null) {
+            long data = table.probe(position.hash());
+            if (data != 0) {
+                if (hashMove == 0) hashMove = TranspositionTable.move(data);
+                if (ply > 0 && TranspositionTable.depth(data) >= depth) {
+                    int score = fromTable(TranspositionTable.score(data), ply);
+                    int bound = TranspositionTable.bound(data);
+                    if (bound == TranspositionTable.EXACT
+                            || bound == TranspositionTable.LOWER && score >= beta
+                            || bound == TranspositionTable.UPPER && score <= alpha) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        int end = MoveGenerator.generateLegal(position, moves, start);
+        if (end == start) {
+            return position.isInCheck(position.sideToMove()) ? -MATE + ply : 0; // mate or stalemate
+        }
+        scoreMoves(start, end, hashMove, ply);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestHere = 0;
+        for (int i = start; i < end; i++) {
+            int move = pickNext(i, end);
+            boolean quiet = isQuiet(move);
+            position.makeMove(move);
+            int score = -search(depth - 1, -beta, -alpha, ply + 1, end);
+            position.unmakeMove();
+            if (stop) return 0;
+
+            if (score > best) {
+                best = score;
+                bestHere = move;
+                if (ply == 0) rootMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (quiet) rememberCutoff(move, depth, ply);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (table != null) {
+            int bound = best >= beta ? TranspositionTable.LOWER
+                    : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+            table.store(position.hash(), bestHere, toTable(best, ply), depth, bound);
+        }
+        return best;
+    }
+
+    /*
+     Search captures only, until the position is quiet, so that the score of a leaf is
+     not taken in the middle of an exchange. The player to move may also stand pat
+     and take the static score. Captures that lose material by SEE, or cannot bring
+     the score near alpha even if the captured piece came for free, are skipped.
+    */
+    private int quiesce(int alpha, int beta, int ply, int start) {
+        if ((++nodes & (CHECK_EVERY - 1)) == 0) checkLimits();
+        if (stop) return 0;
+        int standPat = Evaluator.evaluate(position);
+        if (standPat >= beta || ply >= MAX_DEPTH) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        // Keep the legal captures only
+        int all = MoveGenerator.generatePseudoLegal(position, moves, start);
+        int end = start;
+        for (int i = start; i < all; i++) {
+            int move = moves[i];
+            int victim = Move.isCastling(move) ? Position.EMPTY : position.pieceAt(Move.to(move));
+            if (victim == Position.EMPTY) continue;
+            if (standPat + Evaluator.VALUES[Position.typeOf(victim)] + DELTA_MARGIN <= alpha) continue;
+            if (!MoveGenerator.isLegal(position, move)) continue;
+            moves[end] = move;
+            scores[end++] = Position.typeOf(victim) * 8 - Position.typeOf(position.pieceAt(Move.from(move)));
+        }
+
+        int best = standPat;
+        for (int i = start; i < end; i++) {
+            int move = pickNext(i, end);
+            if (See.see(position, move, exchange) < 0) continue;
+            position.makeMove(move);
+            int score = -quiesce(-beta, -alpha, ply + 1, end);
+            position.unmakeMove();
+            if (stop) return 0;
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return best;
+    }
+
+    /*
+     A position is scored as a draw as soon as it repeats once, either one of the
+     search path or one of the game before the root: if repeating is good for one
+     side it can repeat again. The fifty-move rule only draws when the player to move
+     is not mated, and no mate can come from insufficient material.
+    */
+    private boolean isDraw() {
+        if (position.isInsufficientMaterial()) return true;
+        int clock = position.halfmoveClock();
+        if (clock >= FIFTY_MOVES && !position.isInCheck(position.sideToMove())) return true;
+        long key = position.hash();
+        int path = position.ply();
+        int window = Math.min(clock, path + gameKeyCount - 1);
+        for (int back = 4; back <= window; back += 2) {
+            long earlier = back <= path ? position.hashBefore(back) : gameKeys[back - path];
+            if (earlier == key) return true;
+        }
+        return false;
+    }
+
+    private void checkLimits() {
+        if (nodes >= nodeLimit || System.nanoTime() >= deadline) stop = true;
+    }
+
+    private boolean isQuiet(int move) {
+        return Move.isCastling(move) || position.pieceAt(Move.to(move)) == Position.EMPTY;
+    }
+
+    private void scoreMoves(int start, int end, int hashMove, int ply) {
+        int[] killer = killers[ply];
+        for (int i = start; i < end; i++) {
+            int move = moves[i];
+            int piece = position.pieceAt(Move.from(move));
+            int victim = Move.isCastling(move) ? Position.EMPTY : position.pieceAt(Move.to(move));
+            if (move == hashMove) scores[i] = HASH_MOVE;
+            else if (victim != Position.EMPTY) {
+                // Most valuable victim first, and the least valuable attacker among equal victims;
+                // taking a cheaper piece is only good if the exchange that follows does not lose
+                int mvvLva = Position.typeOf(victim) * 8 - Position.typeOf(piece);
+                boolean losing = Evaluator.VALUES[Position.typeOf(piece)] > Evaluator.VALUES[Position.typeOf(victim)]
+                        && See.see(position, move, exchange) < 0;
+                scores[i] = (losing ? LOSING_CAPTURE : CAPTURE) + mvvLva;
+            } else if (move == killer[0]) scores[i] = FIRST_KILLER;
+            else if (move == killer[1]) scores[i] = SECOND_KILLER;
+            else scores[i] = history[piece][Move.to(move)];
+        }
+    }
+
+    // Move the best scored of the remaining moves to index i and return it
+    private int pickNext(int i, int end) {
+        int best = i;
+        for (int j = i + 1; j < end; j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        int move = moves[best];
+        moves[best] = moves[i];
+        moves[i] = move;
+        int score = scores[best];
+        scores[best] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    // A quiet move refuted the opponent's play: try it early in sibling positions and similar positions
+    private void rememberCutoff(int move, int depth, int ply) {
+        int[] killer = killers[ply];
+        if (killer[0] != move) {
+            killer[1] = killer[0];
+            killer[0] = move;
+        }
+        int[] row = history[position.pieceAt(Move.from(move))];
+        row[Move.to(move)] += depth * depth;
+        if (row[Move.to(move)] > HISTORY_LIMIT) {
+            for (int[] r : history) {
+                for (int sq = 0; sq < 64; sq++) r[sq] /= 2;
+            }
+        }
+    }
+
+    // Mate scores are stored relative to the position, not to the root
+    private static int toTable(int score, int ply) {
+        if (score > MATE_BOUND) return score + ply;
+        if (score < -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > MATE_BOUND) return score - ply;
+        if (score < -MATE_BOUND) return score + ply;
+        return score;
+    }
+}
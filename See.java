@@ -0,0 +1,69 @@
+public class See {
+
+    // Piece values for exchanges; the king is worth more than everything else so it is never traded
+    private static final int[] VALUES = {
+            Evaluator.VALUES[Position.PAWN], Evaluator.VALUES[Position.HORSE], Evaluator.VALUES[Position.BISHOP],
+            Evaluator.VALUES[Position.ROOK], Evaluator.VALUES[Position.QUEEN], 20000};
+
+    static final int MAX_EXCHANGES = 32; // there are never more pieces than this
+
+    private See() {
+    }
+
+    /*
+     Static exchange evaluation: the material the player to move wins (negative when
+     it loses) by capturing on the target square of the move, when both sides keep
+     recapturing there with their least valuable piece and either may stop when
+     going on would lose. Nothing is moved; the attackers come from attackersTo()
+     with the pieces already used taken out of the occupancy, which also uncovers
+     rooks, bishops and queens standing behind them (x-rays).
+    */
+    public static int see(Position position, int move) {
+        return see(position, move, new int[MAX_EXCHANGES]);
+    }
+
+    // Same as see(position, move) keeping the gains of the exchange in the caller's buffer
+    // of MAX_EXCHANGES entries, so a search can reuse one buffer for all its captures
+    static int see(Position position, int move, int[] gain) {
+        if (Move.isCastling(move)) return 0;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int victim = position.pieceAt(to);
+        gain[0] = victim == Position.EMPTY ? 0 : VALUES[Position.typeOf(victim)];
+
+        int attacker = Position.typeOf(position.pieceAt(from));
+        int side = Position.sideOf(position.pieceAt(from));
+        long occupied = position.occupied() & ~(1L << from);
+        long attackers = attackers(position, to, occupied);
+        int depth = 0;
+        while (depth < MAX_EXCHANGES - 1) {
+            side ^= 1;
+            long own = attackers & position.occupancy(side);
+            if (own == 0) break;
+            depth++;
+            gain[depth] = VALUES[attacker] - gain[depth - 1]; // take the piece that took last
+
+            // Recapture with the least valuable piece
+            for (int type = Position.PAWN; type <= Position.KING; type++) {
+                long candidates = own & position.bitboard(side, type);
+                if (candidates != 0) {
+                    occupied &= ~(candidates & -candidates);
+                    attacker = type;
+                    break;
+                }
+            }
+            attackers = attackers(position, to, occupied);
+        }
+        // Every side stops the exchange as soon as going on would make it worse
+        while (depth > 0) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+            depth--;
+        }
+        return gain[0];
+    }
+
+    // Pieces of both sides still on the board that attack sq
+    private static long attackers(Position position, int sq, long occupied) {
+        return (position.attackersTo(sq, Position.WHITE, occupied) | position.attackersTo(sq, Position.BLACK, occupied)) & occupied;
+    }
+}
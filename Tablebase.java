@@ -0,0 +1,377 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class Tablebase {
+
+    // probe() result when the position is not covered by the table
+    public static final int UNKNOWN = Integer.MIN_VALUE;
+
+    private static final String LETTERS = "PNBRQK"; // as in SAN and FEN, H is read as N
+    private static final int MAGIC = 0x54423031; // "TB01"
+    private static final int HEADER_SIZE = 16; // magic, piece count, piece types, bits per entry; keeps the entries 8-byte aligned
+    private static final int CHUNK_WORDS = 1 << 10; // bitset words, i.e. 65536 positions, handed to one task
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /*
+     A table covers the white king plus the given white pieces against the lone black
+     king, and by swapping colours the same material with Black as the strong side.
+     Positions are indexed as side to move, then the square of the white king, the
+     black king and every white piece, six bits each. Every entry holds 0 for a draw
+     (or an impossible position), otherwise the number of plies to mate plus one; who
+     mates follows from the side to move, because the lone king can never win.
+    */
+    private final int[] types;
+    private final int squares; // kings and pieces
+    private final long size;
+    private final int bits;
+    private final LongBuffer entries;
+
+    private Tablebase(int[] types, int bits, LongBuffer entries) {
+        this.types = types;
+        this.squares = types.length + 2;
+        this.size = 2L << 6 * squares;
+        this.bits = bits;
+        this.entries = entries;
+    }
+
+    // Name of the material, e.g. "KQK" or "KBNK"
+    public String name() {
+        StringBuilder name = new StringBuilder("K");
+        for (int type : types) name.append(LETTERS.charAt(type));
+        return name.append('K').toString();
+    }
+
+    // Types of the strong side's pieces for a name such as "KRK" or "KBNK"
+    public static int[] parse(String name) {
+        if (!name.matches("K[QRBNH]{1,2}K")) throw new IllegalArgumentException("Bad table name " + name);
+        int[] types = new int[name.length() - 2];
+        for (int i = 0; i < types.length; i++) {
+            char c = name.charAt(i + 1);
+            types[i] = c == 'H' ? Position.HORSE : LETTERS.indexOf(c);
+        }
+        return types;
+    }
+
+    /*
+     Score of the position like Search scores it: Search.MATE - n when the player to
+     move mates in n plies, -(Search.MATE - n) when it is mated in n plies, 0 for a
+     draw, or UNKNOWN when the material is not this table's or castling is still
+     possible, which the table does not model.
+    */
+    public int probe(Position position) {
+        int[] sq = new int[squares];
+        int side = squaresOf(position, sq);
+        if (side < 0) return UNKNOWN;
+        int value = entry(index(side, sq));
+        if (value == 0) return 0;
+        int plies = value - 1;
+        return side == Position.WHITE ? Search.MATE - plies : -(Search.MATE - plies);
+    }
+
+    public int probe(ChessBoard board) {
+        return probe(board.position());
+    }
+
+    /*
+     The legal move with the best table score: the fastest mate for the winning side,
+     the longest resistance for the losing one. Returns 0 when the position is not
+     covered or there is no legal move.
+    */
+    public int bestMove(Position position) {
+        if (probe(position) == UNKNOWN) return 0;
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(position, moves, 0);
+        Position child = new Position(position);
+        int best = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            child.makeMove(moves[i]);
+            int score = probe(child);
+            child.unmakeMove();
+            score = score == UNKNOWN ? 0 : -score; // a capture leaves a lone king or minor piece: a draw
+            if (score > bestScore) {
+                bestScore = score;
+                best = moves[i];
+            }
+        }
+        return best;
+    }
+
+    /*
+     Build the table by retrograde analysis, on all cores. Starting from the
+     checkmates, every round walks one ply back: the positions that can reach the
+     previous round's new results by one move (found by moving pieces backwards)
+     become candidates, and each candidate is settled by the piece rules. A White
+     candidate wins at once; a Black one is lost only if all its moves lead to
+     positions already won by White. Rounds stop when nothing new is found.
+    */
+    public static Tablebase generate(int... types) {
+        int squares = types.length + 2;
+        long size = 2L << 6 * squares;
+        int words = (int) (size >>> 6);
+        int chunks = (words + CHUNK_WORDS - 1) / CHUNK_WORDS;
+        byte[] values = new byte[(int) size];
+        long[][] frontier = {new long[words]};
+        long[] candidates = new long[words];
+        int half = words / 2; // black to move starts here
+        Tablebase shape = new Tablebase(types, 0, null);
+
+        // Checkmates: Black to move, in check, and no move out of it
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] sq = new int[squares];
+            for (int word = Math.max(half, chunk * CHUNK_WORDS); word < Math.min(words, (chunk + 1) * CHUNK_WORDS); word++) {
+                for (int bit = 0; bit < 64; bit++) {
+                    long index = (long) word << 6 | bit;
+                    shape.decode(index, sq);
+                    if (shape.isLegal(Position.BLACK, sq) && shape.isMated(sq)) {
+                        values[(int) index] = 1;
+                        frontier[0][word] |= 1L << bit;
+                    }
+                }
+            }
+        });
+
+        for (int ply = 1; ; ply++) {
+            boolean whiteMoves = (ply & 1) == 1;
+            long[] current = frontier[0];
+            Arrays.fill(candidates, 0);
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int[] sq = new int[squares];
+                for (int word = chunk * CHUNK_WORDS; word < Math.min(words, (chunk + 1) * CHUNK_WORDS); word++) {
+                    for (long w = current[word]; w != 0; w &= w - 1) {
+                        shape.decode((long) word << 6 | Long.numberOfTrailingZeros(w), sq);
+                        shape.markPredecessors(whiteMoves, sq, candidates);
+                    }
+                }
+            });
+
+            long[] next = new long[words];
+            byte value = (byte) (ply + 1);
+            boolean[] found = new boolean[chunks];
+            IntStream.range(0, chunks).parallel().forEach(chunk -> {
+                int[] sq = new int[squares];
+                for (int word = chunk * CHUNK_WORDS; word < Math.min(words, (chunk + 1) * CHUNK_WORDS); word++) {
+                    for (long w = candidates[word]; w != 0; w &= w - 1) {
+                        int bit = Long.numberOfTrailingZeros(w);
+                        int index = word << 6 | bit;
+                        if (values[index] != 0) continue;
+                        shape.decode(index, sq);
+                        int side = whiteMoves ? Position.WHITE : Position.BLACK;
+                        if (!shape.isLegal(side, sq)) continue;
+                        if (whiteMoves || shape.isLost(sq, values)) {
+                            values[index] = value;
+                            next[word] |= 1L << bit;
+                            found[chunk] = true;
+                        }
+                    }
+                }
+            });
+            boolean any = false;
+            for (boolean f : found) any |= f;
+            if (!any) break;
+            frontier[0] = next;
+        }
+
+        int max = 0;
+        for (byte v : values) max = Math.max(max, v & 0xFF);
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(max));
+        long[] packed = new long[(int) ((size * bits + 63) >>> 6) + 1];
+        for (long index = 0; index < size; index++) {
+            long bitIndex = index * bits;
+            int word = (int) (bitIndex >>> 6);
+            int shift = (int) (bitIndex & 63);
+            long v = values[(int) index] & 0xFF;
+            packed[word] |= v << shift;
+            if (shift + bits > 64) packed[word + 1] |= v >>> (64 - shift);
+        }
+        return new Tablebase(types, bits, LongBuffer.wrap(packed));
+    }
+
+    // Write the table; the file is the header followed by the bit-packed entries
+    public void write(Path file) throws IOException {
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).put((byte) types.length);
+            for (int type : types) header.put((byte) type);
+            header.position(HEADER_SIZE - 1);
+            header.put((byte) bits).flip();
+            out.write(header);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            for (int i = 0; i < entries.capacity(); i++) {
+                if (buffer.remaining() < Long.BYTES) flush(out, buffer);
+                buffer.putLong(entries.get(i));
+            }
+            flush(out, buffer);
+        }
+    }
+
+    // Open a table file; the entries are memory-mapped, so opening reads only the header
+    public static Tablebase read(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && in.read(header) >= 0) ;
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) throw new IOException("Not a table: " + file);
+            int[] types = new int[header.get()];
+            for (int i = 0; i < types.length; i++) types[i] = header.get();
+            int bits = header.get(HEADER_SIZE - 1);
+            LongBuffer entries = in.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, in.size() - HEADER_SIZE).asLongBuffer();
+            return new Tablebase(types, bits, entries);
+        }
+    }
+
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) out.write(buffer);
+        buffer.clear();
+    }
+
+    private int entry(long index) {
+        long bitIndex = index * bits;
+        int word = (int) (bitIndex >>> 6);
+        int shift = (int) (bitIndex & 63);
+        long v = entries.get(word) >>> shift;
+        if (shift + bits > 64) v |= entries.get(word + 1) << (64 - shift);
+        return (int) (v & ((1L << bits) - 1));
+    }
+
+    /*
+     Fill sq with the squares of the position as the table sees it and return the side
+     to move, or -1 when the table does not cover the position. With Black as the strong
+     side the board is turned over, which the rules of these pieces do not notice.
+    */
+    private int squaresOf(Position position, int[] sq) {
+        if (position.castlingRights() != 0) return -1;
+        int strong;
+        if (position.occupancy(Position.BLACK) == position.bitboard(Position.BLACK, Position.KING)) strong = Position.WHITE;
+        else if (position.occupancy(Position.WHITE) == position.bitboard(Position.WHITE, Position.KING)) strong = Position.BLACK;
+        else return -1;
+        if (Long.bitCount(position.occupancy(strong)) != squares - 1) return -1;
+        int flip = strong == Position.WHITE ? 0 : 56; // line l becomes line 7 - l
+        sq[0] = Long.numberOfTrailingZeros(position.bitboard(strong, Position.KING)) ^ flip;
+        sq[1] = Long.numberOfTrailingZeros(position.bitboard(strong ^ 1, Position.KING)) ^ flip;
+        long used = 0;
+        for (int i = 0; i < types.length; i++) {
+            long pieces = position.bitboard(strong, types[i]) & ~used;
+            if (pieces == 0) return -1;
+            long piece = pieces & -pieces;
+            used |= piece;
+            sq[i + 2] = Long.numberOfTrailingZeros(piece) ^ flip;
+        }
+        if ((used | position.bitboard(strong, Position.KING)) != position.occupancy(strong)) return -1;
+        return strong == Position.WHITE ? position.sideToMove() : position.sideToMove() ^ 1;
+    }
+
+    private long index(int side, int[] sq) {
+        long index = side;
+        for (int s : sq) index = index << 6 | s;
+        return index;
+    }
+
+    private void decode(long index, int[] sq) {
+        for (int i = squares - 1; i >= 0; i--) {
+            sq[i] = (int) (index & 63);
+            index >>>= 6;
+        }
+    }
+
+    private static long attacks(int type, int sq, long occupied) {
+        switch (type) {
+            case Position.KING: return Attacks.king(sq);
+            case Position.HORSE: return Attacks.horse(sq);
+            case Position.BISHOP: return Attacks.bishop(sq, occupied);
+            case Position.ROOK: return Attacks.rook(sq, occupied);
+            default: return Attacks.queen(sq, occupied);
+        }
+    }
+
+    private int typeAt(int i) {
+        return i < 2 ? Position.KING : types[i - 2];
+    }
+
+    // Check if any white piece but the one at skip attacks target; skip is -1 to count them all
+    private boolean whiteAttacks(int[] sq, int target, long occupied, int skip) {
+        long bit = 1L << target;
+        for (int i = 0; i < squares; i++) {
+            if (i == 1 || i == skip) continue;
+            if ((attacks(typeAt(i), sq[i], occupied) & bit) != 0) return true;
+        }
+        return false;
+    }
+
+    private long occupied(int[] sq) {
+        long occupied = 0;
+        for (int s : sq) occupied |= 1L << s;
+        return occupied;
+    }
+
+    // A position can occur if no two pieces share a square, the kings are apart and the side not to move is not in check
+    private boolean isLegal(int side, int[] sq) {
+        long occupied = occupied(sq);
+        if (Long.bitCount(occupied) != squares) return false;
+        if ((Attacks.king(sq[0]) & 1L << sq[1]) != 0) return false;
+        return side == Position.BLACK || !whiteAttacks(sq, sq[1], occupied, -1);
+    }
+
+    private boolean isMated(int[] sq) {
+        long occupied = occupied(sq);
+        return whiteAttacks(sq, sq[1], occupied, -1) && !hasEscape(sq, null);
+    }
+
+    // Check if Black to move has a legal move whose result is not a White win; values null counts every legal move
+    private boolean hasEscape(int[] sq, byte[] values) {
+        int king = sq[1];
+        long occupied = occupied(sq) & ~(1L << king);
+        for (long targets = Attacks.king(king); targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if ((Attacks.king(sq[0]) & 1L << to) != 0 || to == sq[0]) continue;
+            int captured = -1;
+            for (int i = 2; i < squares; i++) {
+                if (sq[i] == to) captured = i;
+            }
+            if (whiteAttacks(sq, to, occupied & ~(1L << to), captured)) continue; // the king would stand in check
+            if (values == null || captured >= 0) return true; // taking a piece leaves a draw
+            sq[1] = to;
+            int value = values[(int) index(Position.WHITE, sq)];
+            sq[1] = king;
+            if (value == 0) return true;
+        }
+        return false;
+    }
+
+    // Black to move, every move leads to a position White is known to win; at least one move is needed
+    private boolean isLost(int[] sq, byte[] values) {
+        return !hasEscape(sq, values) && hasEscape(sq, null);
+    }
+
+    /*
+     Mark every position one move before the given one as a candidate. The pieces
+     move backwards exactly as they move forwards, and the lone king never captured
+     anything before a position of this table, so no piece has to be put back.
+    */
+    private void markPredecessors(boolean whiteMoved, int[] sq, long[] candidates) {
+        long occupied = occupied(sq);
+        int side = whiteMoved ? Position.WHITE : Position.BLACK;
+        for (int i = 0; i < squares; i++) {
+            if ((i == 1) == whiteMoved) continue; // only the side that just moved goes back
+            int square = sq[i];
+            for (long from = attacks(typeAt(i), square, occupied) & ~occupied; from != 0; from &= from - 1) {
+                sq[i] = Long.numberOfTrailingZeros(from);
+                long index = index(side, sq);
+                long bit = 1L << (index & 63);
+                int word = (int) (index >>> 6);
+                if ((candidates[word] & bit) == 0) LONGS.getAndBitwiseOr(candidates, word, bit);
+            }
+            sq[i] = square;
+        }
+    }
+}
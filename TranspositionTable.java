@@ -0,0 +1,101 @@
+import java.util.Arrays;
+
+public class TranspositionTable {
+
+    // Bound types stored with every score
+    public static final int EXACT = 1; // the score is exact
+    public static final int LOWER = 2; // the real score is at least the stored one (fail high)
+    public static final int UPPER = 3; // the real score is at most the stored one (fail low)
+
+    // Replacement policies
+    public static final int ALWAYS_REPLACE = 0; // the newest result always wins the slot
+    public static final int DEPTH_PREFERRED = 1; // keep deeper results from the current search
+
+    /*
+     Every entry takes two longs in one flat array: the position key XOR-ed with
+     the data, followed by the data itself. Threads read and write entries without
+     locks; a torn entry written by two threads at once no longer XORs back to the
+     probed key and is treated as a miss, so no reader can trust a mixed-up entry.
+
+     Data layout: bits 0-15 move, 16-31 score, 32-39 depth, 40-41 bound, 42-49 age.
+    */
+    private final long[] entries;
+    private final int mask;
+    private final int replacementPolicy;
+    private volatile int age;
+
+    // Constructor for a table of about the given size in megabytes
+    public TranspositionTable(int megabytes, int replacementPolicy) {
+        long slots = Long.highestOneBit(Math.max(1, (long) megabytes * 1024 * 1024 / 16));
+        slots = Math.min(slots, 1L << 29); // keep 2 * slots within the array limit
+        this.entries = new long[(int) slots * 2];
+        this.mask = (int) slots - 1;
+        this.replacementPolicy = replacementPolicy;
+    }
+
+    // Return the stored data for the key, or 0 when the table does not know the position
+    public long probe(long key) {
+        int index = index(key);
+        long check = entries[index];
+        long data = entries[index + 1];
+        return (check ^ data) == key ? data : 0;
+    }
+
+    // Store a search result for the key according to the replacement policy
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        if (replacementPolicy == DEPTH_PREFERRED) {
+            long oldData = entries[index + 1];
+            boolean samePosition = (entries[index] ^ oldData) == key;
+            if (!samePosition && bound(oldData) != 0 && age(oldData) == (age & 0xFF) && depth(oldData) > depth) {
+                return; // a deeper result from this search keeps the slot
+            }
+            if (samePosition && move == 0) move = move(oldData); // keep the known best move
+        }
+        long data = (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) (age & 0xFF) << 42);
+        entries[index + 1] = data;
+        entries[index] = key ^ data;
+    }
+
+    // Start a new search, older entries become the first to be replaced
+    public void newSearch() {
+        age++;
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0);
+    }
+
+    // Number of entries the table can hold
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & 0xFF);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+
+    static int age(long data) {
+        return (int) ((data >>> 42) & 0xFF);
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) << 1;
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class Validator {
+
+    private static final int BATCH_SIZE = 64; // games handed to a worker at once, keeps the queue quiet
+    private static final int QUEUE_BATCHES = 64; // the reader waits when the workers fall this far behind
+    private static final long HANDOVER_MILLIS = 100; // how often a waiting reader checks that workers are left
+
+    /*
+     One game of the input: either the commands of a coordinate file
+     ('move 1 1 2 3', 'castling0', 'castling7', 'fen <FEN>') or a PGN game.
+    */
+    static class Game {
+        final long number;
+        final long line; // line of the first command in a coordinate file
+        final String[] commands;
+        final PgnGame pgn;
+
+        Game(long number, long line, String[] commands, PgnGame pgn) {
+            this.number = number;
+            this.line = line;
+            this.commands = commands;
+            this.pgn = pgn;
+        }
+    }
+
+    // Totals over all games; illegal moves are rejected by the piece rules, suspicious ones
+    // are accepted by them but leave the own king in check or capture a king, and failed
+    // games could not be checked to the end because the checking itself threw
+    public static class Summary {
+        public long games;
+        public long moves;
+        public long illegal;
+        public long suspicious;
+        public long failed;
+        public long millis;
+
+        synchronized void add(Summary other) {
+            games += other.games;
+            moves += other.moves;
+            illegal += other.illegal;
+            suspicious += other.suspicious;
+            failed += other.failed;
+        }
+
+        @Override
+        public String toString() {
+            return "Партий: " + games + ", ходов: " + moves + ", недопустимых: " + illegal
+                    + ", подозрительных: " + suspicious + ", не проверено из-за сбоя: " + failed
+                    + ", время: " + millis + " мс";
+        }
+    }
+
+    private static final List<Game> END = new ArrayList<>(); // tells a worker that the input is over
+
+    /*
+     Check every move of every game of the file with the piece rules. Files ending in
+     .pgn are read as PGN, anything else as the commands Main accepts, one game after
+     another separated by empty lines or 'replay'. Games are spread over the given
+     number of threads, each with its own ChessBoard; problems are written to report.
+    */
+    public static Summary validate(Path file, PrintStream report, int threads) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        BlockingQueue<List<Game>> queue = new ArrayBlockingQueue<>(QUEUE_BATCHES);
+        Summary summary = new Summary();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> work(queue, report, summary), "validator-" + i);
+            workers[i].start();
+        }
+        try {
+            if (file.getFileName().toString().toLowerCase().endsWith(".pgn")) readPgn(file, queue, workers);
+            else readCommands(file, queue, workers);
+        } finally {
+            for (int i = 0; i < threads && handOver(queue, END, workers); i++) ;
+            for (Thread worker : workers) worker.join();
+        }
+        summary.millis = (System.nanoTime() - start) / 1_000_000;
+        return summary;
+    }
+
+    /*
+     Put a batch into the queue, waiting while it is full, unless no worker is left to
+     empty it. Workers survive any game that throws, so that only happens after an
+     Error; returns false then instead of blocking forever.
+    */
+    private static boolean handOver(BlockingQueue<List<Game>> queue, List<Game> batch, Thread[] workers) throws InterruptedException {
+        while (!queue.offer(batch, HANDOVER_MILLIS, TimeUnit.MILLISECONDS)) {
+            boolean alive = false;
+            for (Thread worker : workers) alive |= worker.isAlive();
+            if (!alive) return false;
+        }
+        return true;
+    }
+
+    private static void send(BlockingQueue<List<Game>> queue, List<Game> batch, Thread[] workers) throws InterruptedException {
+        if (!handOver(queue, batch, workers)) throw new IllegalStateException("Все потоки проверки остановились");
+    }
+
+    private static void readPgn(Path file, BlockingQueue<List<Game>> queue, Thread[] workers) throws IOException, InterruptedException {
+        List<Game> batch = new ArrayList<>(BATCH_SIZE);
+        try (PgnReader reader = new PgnReader(file)) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                batch.add(new Game(game.number(), 0, null, game.copy()));
+                if (batch.size() == BATCH_SIZE) {
+                    send(queue, batch, workers);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+        }
+        if (!batch.isEmpty()) send(queue, batch, workers);
+    }
+
+    private static void readCommands(Path file, BlockingQueue<List<Game>> queue, Thread[] workers) throws IOException, InterruptedException {
+        List<Game> batch = new ArrayList<>(BATCH_SIZE);
+        List<String> commands = new ArrayList<>();
+        long games = 0;
+        long lineNumber = 0;
+        long firstLine = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+                String s = line == null ? "" : line.trim();
+                if (s.isEmpty() || s.equals("replay") || s.equals("exit")) {
+                    if (!commands.isEmpty()) {
+                        batch.add(new Game(++games, firstLine, commands.toArray(new String[0]), null));
+                        commands.clear();
+                        if (batch.size() == BATCH_SIZE) {
+                            send(queue, batch, workers);
+                            batch = new ArrayList<>(BATCH_SIZE);
+                        }
+                    }
+                } else if (!s.startsWith("#")) {
+                    if (commands.isEmpty()) firstLine = lineNumber;
+                    commands.add(s);
+                }
+            } while (line != null);
+        }
+        if (!batch.isEmpty()) send(queue, batch, workers);
+    }
+
+    private static void work(BlockingQueue<List<Game>> queue, PrintStream report, Summary summary) {
+        Summary local = new Summary();
+        ChessBoard start = Main.buildBoard();
+        start.position(); // every copy starts with the mirror built
+        San san = new San();
+        StringBuilder problems = new StringBuilder();
+        try {
+            List<Game> batch;
+            while ((batch = queue.take()) != END) {
+                for (Game game : batch) {
+                    problems.setLength(0);
+                    try {
+                        if (game.pgn != null) checkPgn(game, san, local, problems);
+                        else checkCommands(game, start.copy(), local, problems);
+                    } catch (RuntimeException e) {
+                        // A bug met by one game must not take the rest of the batch and the worker with it
+                        local.failed++;
+                        problems.append("Партия ").append(game.number).append(": сбой проверки: ").append(e).append('\n');
+                    }
+                    local.games++;
+                    if (problems.length() > 0) {
+                        synchronized (report) {
+                            report.print(problems);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        summary.add(local);
+    }
+
+    private static void checkPgn(Game game, San san, Summary summary, StringBuilder problems) {
+        int played;
+        try {
+            played = game.pgn.replay(game.pgn.startBoard(), san);
+        } catch (IllegalArgumentException e) {
+            summary.illegal++;
+            problems.append("Партия ").append(game.number).append(": ").append(e.getMessage()).append('\n');
+            return;
+        }
+        summary.moves += played;
+        if (game.pgn.error() != null) {
+            summary.illegal++;
+            problems.append("Партия ").append(game.number).append(", ").append(game.pgn.error()).append('\n');
+        }
+    }
+
+    private static void checkCommands(Game game, ChessBoard board, Summary summary, StringBuilder problems) {
+        for (int i = 0; i < game.commands.length; i++) {
+            String s = game.commands[i];
+            int side = board.nowSide;
+            ChessPiece captured = null;
+            boolean done;
+            if (s.equals("castling0")) {
+                done = board.castling0();
+            } else if (s.equals("castling7")) {
+                done = board.castling7();
+            } else if (s.startsWith("fen ")) {
+                try {
+                    board = Fen.toChessBoard(s.substring(4).trim());
+                } catch (IllegalArgumentException e) {
+                    report(game, i, "неверный FEN", problems);
+                    summary.illegal++;
+                }
+                continue;
+            } else if (s.contains("move")) {
+                String[] a = s.split(" ");
+                int line, column, toLine, toColumn;
+                try {
+                    line = Integer.parseInt(a[1]);
+                    column = Integer.parseInt(a[2]);
+                    toLine = Integer.parseInt(a[3]);
+                    toColumn = Integer.parseInt(a[4]);
+                } catch (RuntimeException e) {
+                    report(game, i, "не удалось разобрать ход", problems);
+                    summary.illegal++;
+                    continue;
+                }
+                if (!board.checkPos(line) || !board.checkPos(column) || !board.checkPos(toLine) || !board.checkPos(toColumn)) {
+                    report(game, i, "клетка за пределами доски", problems);
+                    summary.illegal++;
+                    continue;
+                }
+                if (board.board[line][column] == null) {
+                    report(game, i, "на клетке нет фигуры", problems);
+                    summary.illegal++;
+                    continue;
+                }
+                captured = board.board[toLine][toColumn];
+                done = board.moveToPosition(line, column, toLine, toColumn);
+            } else {
+                report(game, i, "неизвестная команда", problems);
+                summary.illegal++;
+                continue;
+            }
+
+            if (!done) {
+                report(game, i, "правила не разрешают этот ход", problems);
+                summary.illegal++;
+                continue;
+            }
+            summary.moves++;
+            // The piece rules do not look at the own king, so such moves are only suspicious
+            if (captured != null && captured.type == Position.KING) {
+                report(game, i, "подозрительно: взят король", problems);
+                summary.suspicious++;
+            } else if (board.position().isInCheck(side)) {
+                report(game, i, "подозрительно: свой король остаётся под шахом", problems);
+                summary.suspicious++;
+            }
+        }
+    }
+
+    private static void report(Game game, int command, String problem, StringBuilder problems) {
+        problems.append("Партия ").append(game.number).append(" (строка ").append(game.line).append("), команда ")
+                .append(command + 1).append(": '").append(game.commands[command]).append("' - ").append(problem).append('\n');
+    }
+}
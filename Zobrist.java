@@ -0,0 +1,53 @@
+public class Zobrist {
+
+    /*
+     Random 64-bit keys for every (piece, square), the side to move and every set
+     of castling rights. A position's key is the XOR of the keys of everything in it,
+     so a move only has to XOR out what changed and XOR in what is new.
+     The generator seed is fixed, keys stay the same between runs and can be stored.
+    */
+    static final long[][] PIECES = new long[12][64];
+    static final long BLACK_TO_MOVE;
+    static final long[] CASTLING = new long[16];
+
+    static {
+        long seed = 0x6A09E667F3BCC908L;
+        for (int piece = 0; piece < 12; piece++) {
+            for (int sq = 0; sq < 64; sq++) {
+                seed = next(seed);
+                PIECES[piece][sq] = mix(seed);
+            }
+        }
+        seed = next(seed);
+        BLACK_TO_MOVE = mix(seed);
+        for (int rights = 0; rights < 16; rights++) {
+            seed = next(seed);
+            CASTLING[rights] = mix(seed);
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    // Compute the key of a position from scratch
+    public static long hash(Position position) {
+        long hash = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            int piece = position.squares[sq];
+            if (piece != Position.EMPTY) hash ^= PIECES[piece][sq];
+        }
+        if (position.sideToMove == Position.BLACK) hash ^= BLACK_TO_MOVE;
+        return hash ^ CASTLING[position.castlingRights];
+    }
+
+    // SplitMix64 steps
+    private static long next(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,162 @@
+import bench.Cases;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import org.openjdk.jmh.infra.Blackhole;
+
+public class BenchmarkCases implements Cases {
+
+    /*
+     Fixed corpus of realistic middlegame positions: five well-known openings
+     (Italian, Queen's Gambit Declined, Sicilian Najdorf, King's Indian, Ruy Lopez)
+     played for 14 plies, written in the command format Main accepts.
+    */
+    static final String[][] CORPUS = {
+            {"move 1 4 3 4", "move 6 4 4 4", "move 0 6 2 5", "move 7 1 5 2", "move 0 5 3 2", "move 7 5 4 2", "move 1 2 2 2", "move 7 6 5 5", "move 1 3 2 3", "move 6 3 5 3", "castling7", "castling7", "move 0 5 0 4", "move 6 0 5 0"},
+            {"move 1 3 3 3", "move 6 3 4 3", "move 1 2 3 2", "move 6 4 5 4", "move 0 1 2 2", "move 7 6 5 5", "move 0 2 4 6", "move 7 5 6 4", "move 1 4 2 4", "castling7", "move 0 6 2 5", "move 6 7 5 7", "move 4 6 3 7", "move 6 1 5 1"},
+            {"move 1 4 3 4", "move 6 2 4 2", "move 0 6 2 5", "move 6 3 5 3", "move 1 3 3 3", "move 4 2 3 3", "move 2 5 3 3", "move 7 6 5 5", "move 0 1 2 2", "move 6 0 5 0", "move 0 5 1 4", "move 6 4 4 4", "move 3 3 2 1", "move 7 5 6 4"},
+            {"move 1 3 3 3", "move 7 6 5 5", "move 1 2 3 2", "move 6 6 5 6", "move 0 1 2 2", "move 7 5 6 6", "move 1 4 3 4", "move 6 3 5 3", "move 0 6 2 5", "castling7", "move 0 5 1 4", "move 6 4 4 4", "castling7", "move 7 1 5 2"},
+            {"move 1 4 3 4", "move 6 4 4 4", "move 0 6 2 5", "move 7 1 5 2", "move 0 5 4 1", "move 6 0 5 0", "move 4 1 3 0", "move 7 6 5 5", "castling7", "move 7 5 6 4", "move 0 5 0 4", "move 6 1 4 1", "move 3 0 2 1", "move 6 3 5 3"},
+    };
+
+    /*
+     Openings where the player to move may castle queenside: the middlegame corpus never
+     gets there, its games castle kingside or not at all.
+    */
+    static final String[] LONG_CASTLING = {
+            "r3kbnr/pppqpppp/2n5/3p1b2/3P1B2/2N5/PPPQPPPP/R3KBNR w KQkq - 6 5",
+            "r3kbnr/pppqpppp/2n5/3p1b2/3P1B2/2N1P3/PPPQ1PPP/R3KBNR b KQkq - 0 5",
+            "r3k2r/ppp2ppp/2nqbn2/3pp3/3PP3/2NQBN2/PPP2PPP/R3K2R w KQkq - 0 8",
+            "r3kb1r/pp1qpppp/2n2n2/2pp1b2/3P1B2/2N1PN2/PPPQ1PPP/R3KB1R b KQkq - 3 6",
+            "r3k1nr/pppq1ppp/2nbb3/3pp3/3PP3/2NBB3/PPPQ1PPP/R3K1NR w KQkq - 6 7",
+    };
+
+    // Knight moves that bring the start position back after four plies
+    private static final int[][] KNIGHT_SHUFFLE = {{0, 6, 2, 5}, {7, 6, 5, 5}, {2, 5, 0, 6}, {5, 5, 7, 6}};
+
+    private static final PrintStream NOWHERE = new PrintStream(OutputStream.nullOutputStream());
+
+    private final ChessBoard[] middlegames = corpus();
+    private final ChessBoard[] castlingReady = beforeCastling(); // replayed up to the first castling, where castling7() succeeds
+    private final ChessBoard[] longCastlingReady = longCastling();
+    private final ChessBoard start = Main.buildBoard();
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    // Replay every corpus game from Main.buildBoard()
+    static ChessBoard[] corpus() {
+        ChessBoard[] boards = new ChessBoard[CORPUS.length];
+        for (int i = 0; i < CORPUS.length; i++) {
+            ChessBoard board = Main.buildBoard();
+            for (String command : CORPUS[i]) {
+                if (!apply(board, command)) throw new IllegalStateException("Corpus move rejected: " + command);
+            }
+            boards[i] = board;
+        }
+        return boards;
+    }
+
+    static ChessBoard[] longCastling() {
+        ChessBoard[] boards = new ChessBoard[LONG_CASTLING.length];
+        for (int i = 0; i < LONG_CASTLING.length; i++) {
+            boards[i] = Fen.toChessBoard(LONG_CASTLING[i]);
+            if (!boards[i].copy().castling0()) throw new IllegalStateException("No castling in " + LONG_CASTLING[i]);
+        }
+        return boards;
+    }
+
+    static ChessBoard[] beforeCastling() {
+        ChessBoard[] boards = new ChessBoard[CORPUS.length];
+        for (int i = 0; i < CORPUS.length; i++) {
+            ChessBoard board = Main.buildBoard();
+            for (String command : CORPUS[i]) {
+                if (command.startsWith("castling")) break;
+                apply(board, command);
+            }
+            boards[i] = board;
+        }
+        return boards;
+    }
+
+    @Override
+    public void canMoveToPosition(int type, Blackhole blackhole) {
+        for (ChessBoard board : middlegames) {
+            for (int line = 0; line < 8; line++) {
+                for (int column = 0; column < 8; column++) {
+                    ChessPiece piece = board.board[line][column];
+                    if (piece == null || piece.type != type) continue;
+                    for (int to = 0; to < 64; to++) {
+                        blackhole.consume(piece.canMoveToPosition(board, line, column, Position.line(to), Position.column(to)));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void isUnderAttack(Blackhole blackhole) {
+        for (ChessBoard board : middlegames) {
+            for (int sq = 0; sq < 64; sq++) {
+                blackhole.consume(King.isUnderAttack(board, Position.line(sq), Position.column(sq), Position.WHITE));
+                blackhole.consume(King.isUnderAttack(board, Position.line(sq), Position.column(sq), Position.BLACK));
+            }
+        }
+    }
+
+    @Override
+    public void castling0(Blackhole blackhole) {
+        for (ChessBoard board : longCastlingReady) castle(board, Move.CASTLING0, blackhole);
+    }
+
+    @Override
+    public void castling7(Blackhole blackhole) {
+        for (ChessBoard board : castlingReady) castle(board, Move.CASTLING7, blackhole);
+    }
+
+    @Override
+    public void makeUnmakeMove(Blackhole blackhole) {
+        for (ChessBoard board : middlegames) {
+            int count = board.generateMoves(moves);
+            for (int i = 0; i < count; i++) {
+                boolean played = board.makeMove(moves[i]);
+                if (played) board.unmakeMove();
+                blackhole.consume(played);
+            }
+        }
+    }
+
+    @Override
+    public void moveToPosition(Blackhole blackhole) {
+        for (int[] m : KNIGHT_SHUFFLE) blackhole.consume(start.moveToPosition(m[0], m[1], m[2], m[3]));
+    }
+
+    @Override
+    public void generateMoves(Blackhole blackhole) {
+        for (ChessBoard board : middlegames) blackhole.consume(board.generateMoves(moves));
+    }
+
+    @Override
+    public void evaluate(Blackhole blackhole) {
+        for (ChessBoard board : middlegames) blackhole.consume(Evaluator.evaluate(board));
+    }
+
+    @Override
+    public void printBoard(Blackhole blackhole) {
+        for (ChessBoard board : middlegames) board.printBoard(NOWHERE);
+        blackhole.consume(NOWHERE);
+    }
+
+    private static void castle(ChessBoard board, int flag, Blackhole blackhole) {
+        int line = board.nowSide == Position.WHITE ? 0 : 7;
+        int column = flag == Move.CASTLING0 ? 2 : 6;
+        boolean castled = board.makeMove(Move.of(Position.square(line, 4), Position.square(line, column), flag));
+        if (castled) board.unmakeMove();
+        blackhole.consume(castled);
+    }
+
+    // Apply one command in Main's format
+    static boolean apply(ChessBoard board, String command) {
+        if (command.equals("castling0")) return board.castling0();
+        if (command.equals("castling7")) return board.castling7();
+        String[] a = command.split(" ");
+        return board.moveToPosition(Integer.parseInt(a[1]), Integer.parseInt(a[2]), Integer.parseInt(a[3]), Integer.parseInt(a[4]));
+    }
+}
@@ -0,0 +1,44 @@
+package bench;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ The measured operations, implemented by BenchmarkCases next to the game in the
+ unnamed package. JMH only accepts benchmarks in a named package, and a named
+ package cannot refer to the unnamed one, so the benchmarks reach the game
+ through this interface. Every call runs its operation once over each board of
+ the middlegame corpus and hands every result to the Blackhole.
+*/
+public interface Cases {
+
+    // Piece type codes, the same as Position's
+    int PAWN = 0;
+    int HORSE = 1;
+    int BISHOP = 2;
+    int ROOK = 3;
+    int QUEEN = 4;
+    int KING = 5;
+
+    // Ask every piece of the type about every square of the board
+    void canMoveToPosition(int type, Blackhole blackhole);
+
+    // Ask about every square for both colours
+    void isUnderAttack(Blackhole blackhole);
+
+    // Castle on positions where the rules allow it and take it back
+    void castling0(Blackhole blackhole);
+
+    void castling7(Blackhole blackhole);
+
+    // Play every legal move with makeMove() and take it back with unmakeMove()
+    void makeUnmakeMove(Blackhole blackhole);
+
+    // Move the knights of both sides out and back in with moveToPosition()
+    void moveToPosition(Blackhole blackhole);
+
+    void generateMoves(Blackhole blackhole);
+
+    void evaluate(Blackhole blackhole);
+
+    void printBoard(Blackhole blackhole);
+}
@@ -0,0 +1,101 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Time per pass over the five middlegame positions of the corpus
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RuleBenchmarks {
+
+    private Cases cases;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        cases = (Cases) Class.forName("BenchmarkCases").getDeclaredConstructor().newInstance();
+    }
+
+    @Benchmark
+    public void pawnCanMoveToPosition(Blackhole blackhole) {
+        cases.canMoveToPosition(Cases.PAWN, blackhole);
+    }
+
+    @Benchmark
+    public void horseCanMoveToPosition(Blackhole blackhole) {
+        cases.canMoveToPosition(Cases.HORSE, blackhole);
+    }
+
+    @Benchmark
+    public void bishopCanMoveToPosition(Blackhole blackhole) {
+        cases.canMoveToPosition(Cases.BISHOP, blackhole);
+    }
+
+    @Benchmark
+    public void rookCanMoveToPosition(Blackhole blackhole) {
+        cases.canMoveToPosition(Cases.ROOK, blackhole);
+    }
+
+    @Benchmark
+    public void queenCanMoveToPosition(Blackhole blackhole) {
+        cases.canMoveToPosition(Cases.QUEEN, blackhole);
+    }
+
+    @Benchmark
+    public void kingCanMoveToPosition(Blackhole blackhole) {
+        cases.canMoveToPosition(Cases.KING, blackhole);
+    }
+
+    @Benchmark
+    public void isUnderAttack(Blackhole blackhole) {
+        cases.isUnderAttack(blackhole);
+    }
+
+    @Benchmark
+    public void castling0(Blackhole blackhole) {
+        cases.castling0(blackhole);
+    }
+
+    @Benchmark
+    public void castling7(Blackhole blackhole) {
+        cases.castling7(blackhole);
+    }
+
+    @Benchmark
+    public void makeUnmakeMove(Blackhole blackhole) {
+        cases.makeUnmakeMove(blackhole);
+    }
+
+    @Benchmark
+    public void moveToPosition(Blackhole blackhole) {
+        cases.moveToPosition(blackhole);
+    }
+
+    @Benchmark
+    public void generateMoves(Blackhole blackhole) {
+        cases.generateMoves(blackhole);
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        cases.evaluate(blackhole);
+    }
+
+    @Benchmark
+    public void printBoard(Blackhole blackhole) {
+        cases.printBoard(blackhole);
+    }
+}
@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ChessBoardTest {
+
+    // The mirror of a board loaded from FEN is only built by the first move, here a castling
+    @Test
+    void castlesStraightAfterFen() {
+        String[][] cases = {
+                {"4k3/8/8/8/8/8/8/R3K3 w Q - 0 1", "castling0", "0 2", "0 3"},
+                {"4k3/8/8/8/8/8/8/4K2R w K - 0 1", "castling7", "0 6", "0 5"},
+                {"r3k3/8/8/8/8/8/8/4K3 b q - 0 1", "castling0", "7 2", "7 3"},
+                {"4k2r/8/8/8/8/8/8/4K3 b k - 0 1", "castling7", "7 6", "7 5"},
+        };
+        for (String[] c : cases) {
+            ChessBoard board = Fen.toChessBoard(c[0]);
+            assertTrue(c[1].equals("castling0") ? board.castling0() : board.castling7(), c[0]);
+            int kingLine = c[2].charAt(0) - '0';
+            assertSame(ChessPiece.of(Position.piece(kingLine == 0 ? Position.WHITE : Position.BLACK, Position.KING)),
+                    board.board[kingLine][c[2].charAt(2) - '0'], c[0]);
+            assertSame(ChessPiece.of(Position.piece(kingLine == 0 ? Position.WHITE : Position.BLACK, Position.ROOK)),
+                    board.board[kingLine][c[3].charAt(2) - '0'], c[0]);
+            assertEquals(Position.of(board).hash(), board.position().hash(), c[0]);
+            assertEquals(1, board.halfmoveClock(), c[0]);
+        }
+    }
+
+    @Test
+    void sessionCastlesAfterFen() {
+        GameSession session = new GameSession();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        session.execute("fen 4k3/8/8/8/8/8/8/R3K3 w Q - 0 1", out);
+        assertTrue(session.execute("castling0", out));
+        assertTrue(bytes.toString(StandardCharsets.UTF_8).contains("Рокировка удалась"));
+    }
+
+    // Knights going out and back in, as long a line as wanted
+    static final int[] SHUFFLE = {
+            Move.of(6, 21, Move.NORMAL), Move.of(62, 45, Move.NORMAL), Move.of(21, 6, Move.NORMAL), Move.of(45, 62, Move.NORMAL)};
+
+    // The undo stack grows past MAX_PLY and every move can still be taken back
+    @Test
+    void unmakesLinesLongerThanMaxPly() {
+        ChessBoard board = Main.buildBoard();
+        String start = Fen.toFen(board);
+        int plies = Position.MAX_PLY * 2 + 3;
+        for (int i = 0; i < plies; i++) assertTrue(board.makeMove(SHUFFLE[i % 4]), "ply " + i);
+        for (int i = 0; i < plies; i++) board.unmakeMove();
+        assertEquals(start, Fen.toFen(board));
+        assertEquals(Position.of(board).hash(), board.position().hash());
+
+        Position position = Main.buildBoard().position();
+        long hash = position.hash();
+        for (int i = 0; i < plies; i++) position.makeMove(SHUFFLE[i % 4]);
+        assertEquals(plies, position.ply());
+        for (int i = 0; i < plies; i++) position.unmakeMove();
+        assertEquals(hash, position.hash());
+        assertEquals(0, position.halfmoveClock());
+    }
+}
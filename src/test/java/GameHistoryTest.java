@@ -0,0 +1,45 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class GameHistoryTest {
+
+    private static final long KEY = 0x5EED;
+
+    // Keys overwritten after the buffer wrapped must not count once their moves are taken back
+    @Test
+    void popAfterWrapForgetsOverwrittenKeys() {
+        GameHistory history = new GameHistory(1000);
+        for (int i = 1; i < 200; i++) {
+            // 169 is where the game goes back to; 195 and 199 land in the slots of 67 and 71
+            history.push(i == 169 || i == 195 || i == 199 ? KEY : 1000 + i);
+        }
+        assertEquals(GameHistory.CAPACITY, history.size());
+        for (int i = 0; i < 30; i++) history.pop();
+
+        assertEquals(KEY, history.key(0));
+        assertEquals(GameHistory.CAPACITY - 30, history.size());
+        assertEquals(0, history.repetitions(120));
+    }
+
+    @Test
+    void popBeforeWrapKeepsEveryKey() {
+        GameHistory history = new GameHistory(KEY);
+        for (int i = 1; i < 60; i++) history.push(i % 8 == 0 ? KEY : i);
+        for (int i = 0; i < 3; i++) history.pop();
+        assertEquals(57, history.size());
+        assertEquals(KEY, history.key(0));
+        assertEquals(7, history.repetitions(100));
+    }
+
+    @Test
+    void popPastEveryKeptKey() {
+        GameHistory history = new GameHistory(KEY);
+        for (int i = 1; i < 300; i++) history.push(i);
+        for (int i = 0; i < GameHistory.CAPACITY; i++) history.pop();
+        assertEquals(0, history.size());
+        assertEquals(0, history.repetitions(100));
+        history.push(KEY);
+        assertEquals(1, history.size());
+    }
+}
@@ -0,0 +1,69 @@
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GameServerTest {
+
+    @Test
+    void limitsWhatASessionMaySpend() throws Exception {
+        try (GameServer server = new GameServer(0)) {
+            GameSession session = server.newSession();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+            session.execute("pperft 9", out);
+            assertTrue(bytes.toString(StandardCharsets.UTF_8).contains("Глубина не может быть больше"));
+            assertFalse(bytes.toString(StandardCharsets.UTF_8).contains("Узлов"));
+            bytes.reset();
+            session.execute("pperft 3", out);
+            assertTrue(bytes.toString(StandardCharsets.UTF_8).contains("Узлов: 8902"));
+            bytes.reset();
+            long start = System.nanoTime();
+            session.execute("hint 100", out);
+            assertTrue(bytes.toString(StandardCharsets.UTF_8).contains("Подсказка"));
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+        }
+    }
+
+    // A command that fails is answered, and the connection stays open for the next one
+    @Test
+    void sessionOutlivesAFailingCommand(@TempDir Path directory) throws Exception {
+        Path empty = Files.createFile(directory.resolve("empty.bin"));
+        OpeningBook broken = new OpeningBook(empty) {
+            @Override
+            public int bestMove(ChessBoard board) {
+                throw new IllegalStateException("broken book");
+            }
+        };
+        try (broken; GameServer server = new GameServer(0, broken)) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    server.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try (Socket socket = new Socket("localhost", server.port())) {
+                PrintStream out = new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                out.println("hint");
+                out.println("fen");
+                String line;
+                while ((line = in.readLine()) != null && !line.startsWith("Не удалось выполнить команду")) ;
+                assertTrue(line != null && line.contains("broken book"), String.valueOf(line));
+                assertTrue(Fen.START.equals(in.readLine()));
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class PerftTest {
+
+    private static final long[] START = {1, 20, 400, 8902, 197281}; // leaves of the start position by depth
+
+    @Test
+    void parallelCountsMatchSerial() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Position start = Main.buildBoard().position();
+            for (int depth = 0; depth < START.length; depth++) {
+                assertEquals(START[depth], Perft.perft(start, depth), "perft " + depth);
+                assertEquals(START[depth], Perft.parallel(start, depth, pool), "parallel " + depth);
+                PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+                assertEquals(START[depth], Perft.parallelDivide(start, depth, pool, out), "parallelDivide " + depth);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // The lines come from best to worst, one per legal move
+    @Test
+    void analyseSortsRootMoves() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+            assertEquals(20, Perft.analyse(Main.buildBoard().position(), 3, pool, out));
+            String[] lines = bytes.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(20, lines.length);
+            for (int i = 1; i < lines.length; i++) {
+                assertTrue(score(lines[i - 1]) >= score(lines[i]), lines[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Mate in one from the side to move is found and put first
+    @Test
+    void analyseFindsMate() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        Perft.analyse(Fen.toChessBoard("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1").position(), 2, ForkJoinPool.commonPool(), out);
+        assertTrue(score(bytes.toString(StandardCharsets.UTF_8).split("\n")[0]) > Search.MATE - Search.MAX_DEPTH);
+    }
+
+    private static int score(String line) {
+        return Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1).trim());
+    }
+}
@@ -0,0 +1,32 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class PgnReaderTest {
+
+    @Test
+    void decodesTagsAsUtf8() throws Exception {
+        String pgn = """
+                [Event "Чемпионат СССР"]
+                [Site "Москва"]
+                [White "Таль, Михаил"]
+                [Black "Ботвинник, \\"Патриарх\\""]
+                [Result "1-0"]
+
+                1. e4 e5 1-0
+                """;
+        try (PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))))) {
+            PgnGame game = reader.next();
+            assertEquals("Чемпионат СССР", game.tag("Event"));
+            assertEquals("Москва", game.tag("Site"));
+            assertEquals("Таль, Михаил", game.tag("White"));
+            assertEquals("Ботвинник, \"Патриарх\"", game.tag("Black"));
+            assertEquals("1-0", game.tag("Result"));
+            assertNull(reader.next());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class PositionCodecTest {
+
+    @Test
+    void roundTrip() {
+        ChessBoard board = Fen.toChessBoard("r3k2r/pppq1ppp/2n2n2/3pp3/3PP3/2N2N2/PPPQ1PPP/R3K2R b KQkq - 0 1");
+        assertEquals(Fen.toFen(board.position()), Fen.toFen(PositionCodec.decode(PositionCodec.encode(board)).position()));
+    }
+
+    // FEN can put 33 pieces on the board, a record has room for 32
+    @Test
+    void refusesMoreThan32Pieces() {
+        Position position = Fen.toChessBoard(Fen.START).position();
+        PositionCodec.encode(position, ByteBuffer.allocate(PositionCodec.RECORD_SIZE));
+        Position crowded = Fen.toChessBoard("rnbqkbnr/pppppppp/8/8/8/P7/PPPPPPPP/RNBQKBNR w KQkq - 0 1").position();
+        ByteBuffer out = ByteBuffer.allocate(PositionCodec.RECORD_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.encode(crowded, out));
+        assertEquals(0, out.position());
+    }
+
+    @Test
+    void refusesCorruptRecords() {
+        byte[] record = PositionCodec.encode(Main.buildBoard());
+        record[8] |= 0x0F; // the piece on a1 becomes index 15
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(record));
+
+        byte[] crowded = PositionCodec.encode(Main.buildBoard());
+        ByteBuffer.wrap(crowded).putLong(0, 0xFFFFFFFFFL); // 36 squares taken
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(crowded));
+
+        byte[] truncated = Arrays.copyOf(PositionCodec.encode(Main.buildBoard()), 20);
+        assertThrows(IllegalArgumentException.class, () -> PositionCodec.decode(truncated));
+    }
+}
@@ -0,0 +1,66 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PositionStoreTest {
+
+    private static final int SEGMENT_RECORDS = 7; // so that a few hundred records span dozens of mappings
+
+    // Positions of a random game, one per ply, each different from the one before
+    private static List<Position> game(long seed, int plies) {
+        Random random = new Random(seed);
+        List<Position> positions = new ArrayList<>();
+        Position position = Main.buildBoard().position();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < plies; i++) {
+            positions.add(new Position(position));
+            int count = MoveGenerator.generateLegal(position, moves, 0);
+            if (count == 0) position = Main.buildBoard().position();
+            else position.play(moves[random.nextInt(count)]);
+        }
+        return positions;
+    }
+
+    // FEN without the move counters, which records do not keep
+    private static String stored(Position position) {
+        String fen = Fen.toFen(position);
+        return fen.substring(0, fen.lastIndexOf(' ', fen.lastIndexOf(' ') - 1));
+    }
+
+    @Test
+    void roundTripAcrossSegments(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("positions.bin");
+        List<Position> positions = game(7, 300);
+        Position read = new Position();
+        try (PositionStore store = new PositionStore(file, SEGMENT_RECORDS)) {
+            for (int i = 0; i < 200; i++) assertEquals(i, store.append(positions.get(i)));
+            store.flush();
+            for (int i = 200; i < positions.size(); i++) store.append(positions.get(i)); // some still buffered
+            assertEquals(positions.size(), store.size());
+            for (int i = positions.size() - 1; i >= 0; i--) {
+                store.read(i, read);
+                assertEquals(stored(positions.get(i)), stored(read), "record " + i);
+                assertEquals(positions.get(i).hash(), read.hash(), "record " + i);
+            }
+        }
+        assertEquals(300L * PositionCodec.RECORD_SIZE, Files.size(file));
+
+        // Reopened, the store keeps its records and appends after them
+        List<Position> more = game(8, 50);
+        try (PositionStore store = new PositionStore(file, SEGMENT_RECORDS)) {
+            assertEquals(positions.size(), store.size());
+            for (Position position : more) store.append(position);
+            for (int i = 0; i < positions.size() + more.size(); i += 13) {
+                store.read(i, read);
+                Position expected = i < positions.size() ? positions.get(i) : more.get(i - positions.size());
+                assertEquals(stored(expected), stored(read), "record " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ValidatorTest {
+
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final PrintStream report = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+
+    @Test
+    void countsAndReportsCommandGames() throws Exception {
+        Path file = Files.writeString(directory.resolve("games.txt"), """
+                # legal
+                move 1 4 3 4
+                move 6 4 4 4
+                castling7
+
+                move 1 4 5 4
+                fen not a fen
+                replay
+                fen 4k3/8/8/8/8/8/8/R3K3 w Q - 0 1
+                castling0
+                """);
+        Validator.Summary summary = Validator.validate(file, report, 3);
+        assertEquals(3, summary.games);
+        assertEquals(3, summary.moves);
+        assertEquals(3, summary.illegal); // the refused castling, the pawn move and the broken FEN
+        assertEquals(0, summary.failed);
+        String text = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("Партия 1 (строка 2), команда 3: 'castling7'"), text);
+        assertTrue(text.contains("Партия 2 (строка 6), команда 1: 'move 1 4 5 4'"), text);
+        assertTrue(text.contains("Партия 2 (строка 6), команда 2: 'fen not a fen' - неверный FEN"), text);
+    }
+
+    @Test
+    void flagsMovesThatLeaveTheKingInCheck() throws Exception {
+        Path file = Files.writeString(directory.resolve("check.txt"), """
+                fen 4k3/8/8/8/8/8/4r3/4K3 w - - 0 1
+                move 0 4 0 3
+                fen 4k3/4r3/8/8/8/8/4B3/4K3 w - - 0 1
+                move 1 4 2 3
+                """);
+        Validator.Summary summary = Validator.validate(file, report, 1);
+        assertEquals(2, summary.moves);
+        assertEquals(1, summary.suspicious);
+    }
+
+    @Test
+    void checksPgnGames() throws Exception {
+        Path file = Files.writeString(directory.resolve("games.pgn"), """
+                [Event "1"]
+
+                1. e4 e5 2. Nf3 Nc6 1-0
+
+                [Event "2"]
+
+                1. e4 e5 2. Ke3 *
+                """);
+        Validator.Summary summary = Validator.validate(file, report, 2);
+        assertEquals(2, summary.games);
+        assertEquals(1, summary.illegal);
+        assertTrue(bytes.toString(StandardCharsets.UTF_8).startsWith("Партия 2, "), bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void missingFile() {
+        assertThrows(IOException.class, () -> Validator.validate(directory.resolve("none.txt"), report, 2));
+    }
+}